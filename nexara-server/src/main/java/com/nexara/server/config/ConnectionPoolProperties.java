@@ -0,0 +1,128 @@
+package com.nexara.server.config;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SSH 连接池策略，优先级：按 serverId 配置 > 所属分组配置 > 默认值。
+ * <pre>
+ * nexara:
+ *   pool:
+ *     max-total: 5
+ *     groups:
+ *       build:
+ *         servers: [server-01, server-02]
+ *         max-total: 10
+ *     servers:
+ *       server-03:
+ *         min-idle: 1
+ * </pre>
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "nexara.pool")
+public class ConnectionPoolProperties {
+
+    /**
+     * 初始连接上限，池会根据实际等待情况在 [initialTotal, maxTotal] 之间自动伸缩
+     */
+    private int initialTotal = 2;
+
+    /**
+     * 连接上限的最大值
+     */
+    private int maxTotal = 5;
+
+    /**
+     * 最小空闲连接数
+     */
+    private int minIdle = 0;
+
+    /**
+     * 最大空闲连接数
+     */
+    private int maxIdle = 3;
+
+    /**
+     * 连接池耗尽时借用的最长等待时间
+     */
+    private Duration maxWait = Duration.ofSeconds(30);
+
+    /**
+     * 空闲超过该时长的会话由后台回收
+     */
+    private Duration idleTimeout = Duration.ofMinutes(10);
+
+    /**
+     * 后台回收与校验的执行间隔
+     */
+    private Duration evictionInterval = Duration.ofMinutes(1);
+
+    /**
+     * 按分组覆盖的配置
+     */
+    private Map<String, GroupPolicy> groups = new HashMap<>();
+
+    /**
+     * 按 serverId 覆盖的配置
+     */
+    private Map<String, Policy> servers = new HashMap<>();
+
+    /**
+     * 计算某台服务器最终生效的连接池策略
+     */
+    public PoolPolicy resolve(String serverId) {
+        PoolPolicy policy = new PoolPolicy(initialTotal, maxTotal, minIdle, maxIdle, maxWait, idleTimeout);
+        for (GroupPolicy group : groups.values()) {
+            if (group.getServers().contains(serverId)) {
+                policy = group.applyTo(policy);
+            }
+        }
+        Policy server = servers.get(serverId);
+        return server != null ? server.applyTo(policy) : policy;
+    }
+
+    @Data
+    public static class Policy {
+        private Integer initialTotal;
+        private Integer maxTotal;
+        private Integer minIdle;
+        private Integer maxIdle;
+        private Duration maxWait;
+        private Duration idleTimeout;
+
+        PoolPolicy applyTo(PoolPolicy base) {
+            return new PoolPolicy(
+                    initialTotal != null ? initialTotal : base.initialTotal(),
+                    maxTotal != null ? maxTotal : base.maxTotal(),
+                    minIdle != null ? minIdle : base.minIdle(),
+                    maxIdle != null ? maxIdle : base.maxIdle(),
+                    maxWait != null ? maxWait : base.maxWait(),
+                    idleTimeout != null ? idleTimeout : base.idleTimeout());
+        }
+    }
+
+    @Data
+    @EqualsAndHashCode(callSuper = true)
+    public static class GroupPolicy extends Policy {
+        /**
+         * 分组包含的 serverId
+         */
+        private List<String> servers = new ArrayList<>();
+    }
+
+    /**
+     * 最终生效的连接池策略
+     */
+    public record PoolPolicy(int initialTotal, int maxTotal, int minIdle, int maxIdle,
+                             Duration maxWait, Duration idleTimeout) {
+    }
+}
@@ -0,0 +1,137 @@
+package com.nexara.server.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 服务器监控（Node Exporter 采集）配置。
+ * <pre>
+ * nexara:
+ *   monitor:
+ *     connect-timeout: 2s
+ *     read-timeout: 5s
+ *     min-interval: 15s
+ *     max-interval: 5m
+ * </pre>
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "nexara.monitor")
+public class MonitorProperties {
+
+    /**
+     * Node Exporter 监听端口
+     */
+    private int exporterPort = 9100;
+
+    /**
+     * 建立 TCP 连接的超时时间
+     */
+    private Duration connectTimeout = Duration.ofSeconds(2);
+
+    /**
+     * 连接建立后读取完整响应的超时时间
+     */
+    private Duration readTimeout = Duration.ofSeconds(5);
+
+    /**
+     * 采集客户端收发数据的线程数，请求本身是非阻塞的；响应体的解压、解析在单独的虚拟线程中进行
+     */
+    private int ioThreads = 2;
+
+    /**
+     * 新服务器及采集失败后的采集间隔，新服务器的首次采集时间在该间隔内随机分布
+     */
+    private Duration initialInterval = Duration.ofMinutes(1);
+
+    /**
+     * 负载高或指标变化明显时的最短采集间隔
+     */
+    private Duration minInterval = Duration.ofSeconds(15);
+
+    /**
+     * 持续稳定时的最长采集间隔
+     */
+    private Duration maxInterval = Duration.ofMinutes(5);
+
+    /**
+     * 指标稳定时每次采集后间隔的放大倍数
+     */
+    private double backoffMultiplier = 1.5;
+
+    /**
+     * 内存、磁盘使用率变化达到该百分点即视为状态变化
+     */
+    private double changeThreshold = 5.0;
+
+    /**
+     * 每次采集时间在间隔基础上随机偏移的比例
+     */
+    private double jitter = 0.1;
+
+    /**
+     * 同时进行的采集数上限
+     */
+    private int maxConcurrency = 64;
+
+    /**
+     * 每轮采集的期限，到期未完成的服务器标记为过期并取消请求，不能小于 connectTimeout + readTimeout
+     */
+    private Duration cycleDeadline = Duration.ofSeconds(8);
+
+    /**
+     * 监控历史各粒度的保留时长
+     */
+    private Retention retention = new Retention();
+
+    /**
+     * 采集结果的异步批量写入
+     */
+    private WriteBehind writeBehind = new WriteBehind();
+
+    @Data
+    public static class Retention {
+
+        /**
+         * 原始采集记录
+         */
+        private Duration raw = Duration.ofDays(2);
+
+        /**
+         * 1 分钟聚合
+         */
+        private Duration minute = Duration.ofDays(7);
+
+        /**
+         * 1 小时聚合
+         */
+        private Duration hour = Duration.ofDays(90);
+
+        /**
+         * 1 天聚合
+         */
+        private Duration day = Duration.ofDays(730);
+    }
+
+    @Data
+    public static class WriteBehind {
+
+        /**
+         * 单个事务最多写入的记录数
+         */
+        private int batchSize = 500;
+
+        /**
+         * 记录进入队列后最多等待多久写入
+         */
+        private Duration maxLatency = Duration.ofSeconds(2);
+
+        /**
+         * 队列容量，写入跟不上时超出部分丢弃
+         */
+        private int queueCapacity = 10000;
+    }
+}
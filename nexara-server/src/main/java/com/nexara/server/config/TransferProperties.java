@@ -0,0 +1,85 @@
+package com.nexara.server.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 远程文件传输配置，可按服务器覆盖默认值。
+ * <pre>
+ * nexara:
+ *   transfer:
+ *     streams: 4
+ *     servers:
+ *       server-01:
+ *         streams: 8
+ * </pre>
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "nexara.transfer")
+public class TransferProperties {
+
+    /**
+     * 文件达到该大小才启用并行上传
+     */
+    private DataSize parallelThreshold = DataSize.ofMegabytes(64);
+
+    /**
+     * 并行上传的并发通道数
+     */
+    private int streams = 4;
+
+    /**
+     * 并行上传的分段大小
+     */
+    private DataSize rangeSize = DataSize.ofMegabytes(16);
+
+    /**
+     * 按 serverId 覆盖的配置
+     */
+    private Map<String, ServerTransfer> servers = new HashMap<>();
+
+    /**
+     * 远程内容寻址缓存
+     */
+    private Cas cas = new Cas();
+
+    public int getStreams(String serverId) {
+        ServerTransfer server = servers.get(serverId);
+        return server != null && server.getStreams() != null ? server.getStreams() : streams;
+    }
+
+    public long getRangeSize(String serverId) {
+        ServerTransfer server = servers.get(serverId);
+        return (server != null && server.getRangeSize() != null ? server.getRangeSize() : rangeSize).toBytes();
+    }
+
+    @Data
+    public static class Cas {
+        /**
+         * 是否启用远程缓存
+         */
+        private boolean enabled = true;
+
+        /**
+         * 缓存目录，相对路径基于登录用户的 home 目录
+         */
+        private String dir = "nexara/cas";
+
+        /**
+         * 单台服务器缓存占用上限，超出后按最近最少使用淘汰
+         */
+        private DataSize maxSize = DataSize.ofGigabytes(2);
+    }
+
+    @Data
+    public static class ServerTransfer {
+        private Integer streams;
+        private DataSize rangeSize;
+    }
+}
@@ -4,6 +4,7 @@ import com.nexara.server.polo.model.ServerInfo;
 import com.nexara.server.service.ConnectServerService;
 import com.nexara.server.util.AjaxResult;
 import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -24,4 +25,14 @@ public class ServerConnectController {
     public AjaxResult testConnectServer(@RequestBody ServerInfo serverInfo) throws Exception {
         return this.connectServerService.testConnectServer(serverInfo);
     }
+
+    @GetMapping("/pool/metrics")
+    public AjaxResult getPoolMetrics() {
+        return this.connectServerService.getPoolMetrics();
+    }
+
+    @GetMapping("/circuits")
+    public AjaxResult getOpenCircuits() {
+        return this.connectServerService.getOpenCircuits();
+    }
 }
@@ -0,0 +1,34 @@
+package com.nexara.server.controller;
+
+import com.nexara.server.polo.model.FleetCommandRequest;
+import com.nexara.server.service.FleetCommandService;
+import com.nexara.server.util.AjaxResult;
+import io.swagger.v3.oas.annotations.Operation;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/server/fleet")
+@RequiredArgsConstructor
+public class ServerFleetController {
+
+    private final FleetCommandService fleetCommandService;
+
+    @Operation(summary = "批量执行命令，按服务器完成顺序以 SSE 推送结果")
+    @PostMapping(value = "/exec/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter executeStreaming(@RequestBody @Valid FleetCommandRequest request) {
+        return fleetCommandService.executeStreaming(request);
+    }
+
+    @Operation(summary = "批量执行命令，全部完成后返回结果")
+    @PostMapping("/exec")
+    public AjaxResult execute(@RequestBody @Valid FleetCommandRequest request) {
+        return fleetCommandService.execute(request);
+    }
+}
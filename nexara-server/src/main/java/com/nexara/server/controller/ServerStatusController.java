@@ -0,0 +1,34 @@
+package com.nexara.server.controller;
+
+import com.nexara.server.service.ServerStatusService;
+import com.nexara.server.util.AjaxResult;
+import io.swagger.v3.oas.annotations.Operation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/server/status")
+@RequiredArgsConstructor
+public class ServerStatusController {
+
+    private final ServerStatusService serverStatusService;
+
+    @Operation(summary = "查询监控历史，from / to 为毫秒时间戳，step 为秒，按 step 选择 1 分钟 / 1 小时 / 1 天聚合或原始数据")
+    @GetMapping("/{serverId}/history")
+    public AjaxResult getStatusHistory(@PathVariable String serverId,
+                                       @RequestParam long from,
+                                       @RequestParam long to,
+                                       @RequestParam(defaultValue = "60") long step) {
+        return serverStatusService.getStatusHistory(serverId, from, to, step);
+    }
+
+    @Operation(summary = "监控数据批量写入的队列深度与写入耗时")
+    @GetMapping("/writer/metrics")
+    public AjaxResult getWriterMetrics() {
+        return serverStatusService.getWriterMetrics();
+    }
+}
@@ -3,30 +3,147 @@ package com.nexara.server.core.connect;
 import com.nexara.server.core.connect.product.ServerConnection;
 import com.nexara.server.core.connect.provider.ConnectionProvider;
 import com.nexara.server.core.exception.connect.ConnectionException;
+import com.nexara.server.polo.enums.ConnectErrorCode;
 import com.nexara.server.polo.enums.ProtocolType;
+import com.nexara.server.polo.model.PoolMetrics;
 import com.nexara.server.polo.model.ServerInfo;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 
+@Log4j2
 @Component
 public class ConnectionFactory {
 
     private final Map<ProtocolType, ConnectionProvider> providerMap = new ConcurrentHashMap<>();
 
+    // key = host:port，建连熔断器
+    private final Map<String, HostCircuitBreaker> breakerMap = new ConcurrentHashMap<>();
+
+    // 尚未归还的借用，用于泄漏检测
+    private final Set<ConnectionLease> activeLeases = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 借出超过该时长仍未归还视为泄漏
+     */
+    @Value("${nexara.connection.leak-threshold:30m}")
+    private Duration leakThreshold;
+
     public ConnectionFactory(List<ConnectionProvider> providers) {
         for (ConnectionProvider provider : providers) {
             providerMap.put(provider.getSupportedProtocol(), provider);
         }
     }
 
+    /**
+     * 借用一个连接，使用完毕后必须关闭返回的 {@link ConnectionLease}
+     */
+    public ConnectionLease acquire(ServerInfo serverInfo) throws ConnectionException {
+        ConnectionLease lease = new ConnectionLease(this, createConnection(serverInfo));
+        activeLeases.add(lease);
+        return lease;
+    }
+
+    /**
+     * 直接从连接池借出连接，调用方必须自行调用 {@link #returnConnection(ServerConnection)} 归还。
+     * 新代码请使用 {@link #acquire(ServerInfo)}。
+     */
     public ServerConnection createConnection(ServerInfo serverInfo) throws ConnectionException {
-        ConnectionProvider provider = providerMap.get(serverInfo.getProtocol());
+        ConnectionProvider provider = getProvider(serverInfo.getProtocol());
+        String host = serverInfo.getHost() + ":" + serverInfo.getPort();
+        HostCircuitBreaker breaker = breakerMap.computeIfAbsent(host, HostCircuitBreaker::new);
+        if (!breaker.tryAcquire()) {
+            throw new ConnectionException(
+                    ConnectErrorCode.CIRCUIT_OPEN,
+                    serverInfo.getServerId(),
+                    host,
+                    breaker.getRemainingOpenMillis() + " 毫秒后重试");
+        }
+
+        try {
+            ServerConnection connection = provider.getConnection(serverInfo);
+            breaker.onSuccess();
+            return connection;
+        } catch (ConnectionException e) {
+            if (e.getErrorCode() == ConnectErrorCode.RESOURCE_LIMIT) {
+                breaker.onIgnored();
+            } else {
+                breaker.onFailure();
+            }
+            throw e;
+        } catch (RuntimeException e) {
+            breaker.onIgnored();
+            throw e;
+        }
+    }
+
+    /**
+     * 归还通过 {@link #createConnection(ServerInfo)} 借出的连接
+     */
+    public void returnConnection(ServerConnection connection) {
+        getProvider(connection.getServerInfo().getProtocol()).returnConnection(connection);
+    }
+
+    void release(ConnectionLease lease) {
+        activeLeases.remove(lease);
+        if (lease.leakReported) {
+            log.warn("疑似泄漏的连接已归还 [{}]，共借出 {} 毫秒",
+                    lease.getConnection().getServerInfo().getServerId(), lease.getHeldMillis());
+        }
+        returnConnection(lease.getConnection());
+    }
+
+    /**
+     * 各协议连接池的运行指标
+     */
+    public List<PoolMetrics> getPoolMetrics() {
+        List<PoolMetrics> metrics = new ArrayList<>();
+        providerMap.values().forEach(provider -> metrics.addAll(provider.getPoolMetrics()));
+        return metrics;
+    }
+
+    /**
+     * 当前未处于闭合状态的主机熔断器，key = host:port
+     */
+    public Map<String, String> getOpenCircuits() {
+        Map<String, String> circuits = new TreeMap<>();
+        breakerMap.forEach((host, breaker) -> {
+            if (breaker.getState() != HostCircuitBreaker.State.CLOSED) {
+                circuits.put(host, breaker.getState().name());
+            }
+        });
+        return circuits;
+    }
+
+    /**
+     * 定期检查借出时间过长的连接，每个借用只报告一次
+     */
+    @Scheduled(fixedDelay = 60_000)
+    public void detectLeaks() {
+        for (ConnectionLease lease : activeLeases) {
+            if (!lease.leakReported && lease.getHeldMillis() > leakThreshold.toMillis()) {
+                lease.leakReported = true;
+                log.warn("连接借出 {} 毫秒仍未归还，可能发生泄漏 [{}]",
+                        lease.getHeldMillis(), lease.getConnection().getServerInfo().getServerId(),
+                        lease.getBorrowSite());
+            }
+        }
+    }
+
+    private ConnectionProvider getProvider(ProtocolType protocol) {
+        ConnectionProvider provider = providerMap.get(protocol);
         if (provider == null) {
-            throw new IllegalArgumentException("不支持的连接协议: " + serverInfo.getProtocol());
+            throw new IllegalArgumentException("不支持的连接协议: " + protocol);
         }
-        return provider.getConnection(serverInfo);
+        return provider;
     }
 }
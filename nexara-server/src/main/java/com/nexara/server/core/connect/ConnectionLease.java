@@ -0,0 +1,55 @@
+package com.nexara.server.core.connect;
+
+import com.nexara.server.core.connect.product.ServerConnection;
+import lombok.Getter;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 一次连接借用。配合 try-with-resources 使用，关闭时把连接归还连接池：
+ * <pre>
+ * try (ConnectionLease lease = connectionFactory.acquire(serverInfo)) {
+ *     lease.getConnection().executeCommand("uptime");
+ * }
+ * </pre>
+ * 借出时记录时间和调用位置，超时未归还时由 {@link ConnectionFactory} 打印泄漏日志。
+ */
+public class ConnectionLease implements AutoCloseable {
+
+    @Getter
+    private final ServerConnection connection;
+
+    @Getter
+    private final long borrowTime = System.currentTimeMillis();
+
+    // 借出位置，泄漏日志中打印其堆栈
+    @Getter
+    private final Throwable borrowSite;
+
+    private final ConnectionFactory factory;
+    private final AtomicBoolean released = new AtomicBoolean(false);
+    volatile boolean leakReported;
+
+    ConnectionLease(ConnectionFactory factory, ServerConnection connection) {
+        this.factory = factory;
+        this.connection = connection;
+        this.borrowSite = new Throwable("连接借出位置 [" + Thread.currentThread().getName() + "]");
+    }
+
+    /**
+     * 已借出的时长（毫秒）
+     */
+    public long getHeldMillis() {
+        return System.currentTimeMillis() - borrowTime;
+    }
+
+    /**
+     * 归还连接，重复调用只归还一次
+     */
+    @Override
+    public void close() {
+        if (released.compareAndSet(false, true)) {
+            factory.release(this);
+        }
+    }
+}
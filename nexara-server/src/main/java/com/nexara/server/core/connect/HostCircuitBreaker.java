@@ -0,0 +1,133 @@
+package com.nexara.server.core.connect;
+
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * 单台主机的熔断器。
+ * 统计最近若干次建连结果，失败率达到阈值后熔断，熔断期间直接拒绝建连；
+ * 熔断到期后只放行一个探测请求（半开），探测成功则恢复，失败则熔断时长翻倍。
+ */
+@Log4j2
+class HostCircuitBreaker {
+
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    // 统计最近多少次建连结果
+    private static final int WINDOW_SIZE = 10;
+    // 窗口内至少有多少次结果才计算失败率
+    private static final int MIN_CALLS = 3;
+    private static final double FAILURE_RATE_THRESHOLD = 0.5;
+    private static final long BASE_OPEN_MILLIS = 5_000L;
+    private static final long MAX_OPEN_MILLIS = 5 * 60_000L;
+
+    @Getter
+    private final String host;
+
+    // true 表示失败，环形记录
+    private final boolean[] window = new boolean[WINDOW_SIZE];
+    private int windowCount;
+    private int windowIndex;
+    private int failures;
+
+    @Getter
+    private volatile State state = State.CLOSED;
+    private long openUntil;
+    private long openMillis = BASE_OPEN_MILLIS;
+    private boolean probing;
+
+    HostCircuitBreaker(String host) {
+        this.host = host;
+    }
+
+    /**
+     * @return false 表示处于熔断中，应直接失败
+     */
+    synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.currentTimeMillis() < openUntil) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                probing = true;
+                log.info("主机 [{}] 熔断到期，放行探测请求", host);
+                return true;
+            default:
+                // 半开状态同一时间只允许一个探测
+                if (probing) {
+                    return false;
+                }
+                probing = true;
+                return true;
+        }
+    }
+
+    synchronized void onSuccess() {
+        if (state != State.CLOSED) {
+            log.info("主机 [{}] 探测成功，熔断解除", host);
+            state = State.CLOSED;
+            openMillis = BASE_OPEN_MILLIS;
+            resetWindow();
+        } else {
+            record(false);
+        }
+        probing = false;
+    }
+
+    synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            openMillis = Math.min(openMillis * 2, MAX_OPEN_MILLIS);
+            open();
+            return;
+        }
+        record(true);
+        if (windowCount >= MIN_CALLS && failures >= FAILURE_RATE_THRESHOLD * windowCount) {
+            open();
+        }
+    }
+
+    /**
+     * 与主机可达性无关的结果（如连接池耗尽），不计入统计，只释放探测名额
+     */
+    synchronized void onIgnored() {
+        probing = false;
+    }
+
+    /**
+     * 距离熔断到期的剩余时间（毫秒）
+     */
+    synchronized long getRemainingOpenMillis() {
+        return Math.max(0, openUntil - System.currentTimeMillis());
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openUntil = System.currentTimeMillis() + openMillis;
+        probing = false;
+        resetWindow();
+        log.warn("主机 [{}] 建连失败过多，熔断 {} 毫秒", host, openMillis);
+    }
+
+    private void record(boolean failure) {
+        if (windowCount == WINDOW_SIZE && window[windowIndex]) {
+            failures--;
+        }
+        window[windowIndex] = failure;
+        if (failure) {
+            failures++;
+        }
+        windowIndex = (windowIndex + 1) % WINDOW_SIZE;
+        windowCount = Math.min(windowCount + 1, WINDOW_SIZE);
+    }
+
+    private void resetWindow() {
+        windowCount = 0;
+        windowIndex = 0;
+        failures = 0;
+    }
+}
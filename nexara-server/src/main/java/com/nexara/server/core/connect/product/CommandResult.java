@@ -0,0 +1,15 @@
+package com.nexara.server.core.connect.product;
+
+/**
+ * 一次远程命令的执行结果
+ *
+ * @param exitCode 退出码
+ * @param stdout   标准输出（已去除首尾空白）
+ * @param stderr   错误输出（已去除首尾空白）
+ */
+public record CommandResult(int exitCode, String stdout, String stderr) {
+
+    public boolean isSuccess() {
+        return exitCode == 0;
+    }
+}
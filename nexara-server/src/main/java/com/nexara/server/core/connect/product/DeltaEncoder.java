@@ -0,0 +1,154 @@
+package com.nexara.server.core.connect.product;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * rsync 风格的增量编码。
+ * 远程旧文件按固定块给出 (adler32, md5) 签名，本地新文件用滚动 adler32 在任意偏移上查找相同的块，
+ * 命中的块生成 "C 块序号" 指令，其余字节作为字面数据写出并生成 "L 长度" 指令。
+ */
+final class DeltaEncoder {
+
+    /**
+     * 签名块大小
+     */
+    static final int BLOCK_SIZE = 32 * 1024;
+
+    private static final int ADLER_MOD = 65521;
+
+    private DeltaEncoder() {}
+
+    /**
+     * 增量编码结果
+     *
+     * @param ops          补丁指令，每行一条
+     * @param copiedBytes  复用远程旧文件的字节数
+     * @param literalBytes 需要传输的字面字节数
+     */
+    record DeltaPlan(String ops, long copiedBytes, long literalBytes) {
+    }
+
+    /**
+     * @param newFile       本地新文件
+     * @param signatures    远程旧文件的块签名，每行 "adler32 md5"
+     * @param literalOutput 字面数据输出
+     */
+    static DeltaPlan encode(Path newFile, List<String> signatures, OutputStream literalOutput) throws IOException {
+        Map<Long, List<BlockSignature>> index = new HashMap<>();
+        for (int i = 0; i < signatures.size(); i++) {
+            String[] parts = signatures.get(i).trim().split("\\s+");
+            if (parts.length == 2) {
+                index.computeIfAbsent(Long.parseLong(parts[0]), k -> new ArrayList<>())
+                        .add(new BlockSignature(i, parts[1]));
+            }
+        }
+
+        try (FileChannel file = FileChannel.open(newFile, StandardOpenOption.READ)) {
+            long fileSize = file.size();
+            if (fileSize > Integer.MAX_VALUE) {
+                throw new IOException("文件过大，不支持增量传输: " + fileSize);
+            }
+            int size = (int) fileSize;
+            MappedByteBuffer data = file.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            MessageDigest md5 = newMd5();
+
+            StringBuilder ops = new StringBuilder();
+            long copied = 0;
+            long literal = 0;
+            int literalStart = 0;
+            int position = 0;
+            boolean rolling = false;
+            long a = 1;
+            long b = 0;
+
+            while (!index.isEmpty() && position + BLOCK_SIZE <= size) {
+                if (!rolling) {
+                    a = 1;
+                    b = 0;
+                    for (int i = position; i < position + BLOCK_SIZE; i++) {
+                        a = (a + (data.get(i) & 0xff)) % ADLER_MOD;
+                        b = (b + a) % ADLER_MOD;
+                    }
+                    rolling = true;
+                }
+
+                int matched = findBlock(index.get((b << 16) | a), data, position, md5);
+                if (matched >= 0) {
+                    literal += writeLiteral(data, literalStart, position, ops, literalOutput);
+                    ops.append("C ").append(matched).append('\n');
+                    copied += BLOCK_SIZE;
+                    position += BLOCK_SIZE;
+                    literalStart = position;
+                    rolling = false;
+                    continue;
+                }
+
+                // 窗口右移一个字节
+                if (position + BLOCK_SIZE < size) {
+                    int out = data.get(position) & 0xff;
+                    int in = data.get(position + BLOCK_SIZE) & 0xff;
+                    a = Math.floorMod(a - out + in, ADLER_MOD);
+                    b = Math.floorMod(b - (long) BLOCK_SIZE * out + a - 1, ADLER_MOD);
+                }
+                position++;
+            }
+
+            literal += writeLiteral(data, literalStart, size, ops, literalOutput);
+            return new DeltaPlan(ops.toString(), copied, literal);
+        }
+    }
+
+    private static int findBlock(List<BlockSignature> candidates, ByteBuffer data, int position, MessageDigest md5) {
+        if (candidates == null) {
+            return -1;
+        }
+        md5.reset();
+        md5.update(data.slice(position, BLOCK_SIZE));
+        String strong = HexFormat.of().formatHex(md5.digest());
+        for (BlockSignature candidate : candidates) {
+            if (candidate.md5().equalsIgnoreCase(strong)) {
+                return candidate.index();
+            }
+        }
+        return -1;
+    }
+
+    private static long writeLiteral(ByteBuffer data, int start, int end, StringBuilder ops,
+                                     OutputStream literalOutput) throws IOException {
+        if (end <= start) {
+            return 0;
+        }
+        byte[] buffer = new byte[Math.min(64 * 1024, end - start)];
+        for (int position = start; position < end; position += buffer.length) {
+            int length = Math.min(buffer.length, end - position);
+            data.get(position, buffer, 0, length);
+            literalOutput.write(buffer, 0, length);
+        }
+        ops.append("L ").append(end - start).append('\n');
+        return end - start;
+    }
+
+    private static MessageDigest newMd5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("当前 JVM 不支持 MD5", e);
+        }
+    }
+
+    private record BlockSignature(int index, String md5) {
+    }
+}
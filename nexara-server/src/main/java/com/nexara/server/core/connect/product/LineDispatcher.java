@@ -0,0 +1,89 @@
+package com.nexara.server.core.connect.product;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 在独立的虚拟线程中执行流式命令的行回调。
+ * 输出由 SSH 客户端的读线程写入，而 JSch 一个会话只有一个读线程，
+ * 回调直接在读线程中执行时，每次回调的耗时都会拖住同一会话上的其他通道和心跳；
+ * 因此读线程只负责把行放入有界队列，回调偶尔变慢由队列吸收。
+ * 队列满时读线程等待回调赶上（背压），不丢弃任何一行。
+ * stdout 与 stderr 共用一个分发器，回调串行执行。
+ */
+@Log4j2
+class LineDispatcher implements AutoCloseable {
+
+    private static final int QUEUE_CAPACITY = 1024;
+    // 队列满时每次等待的时长，期间检查分发器是否已关闭
+    private static final long OFFER_WAIT_MILLIS = 100;
+    // 结束标记，按引用比较
+    private static final String END = new String("");
+
+    private final Consumer<String> lineConsumer;
+    private final BlockingQueue<String> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Thread worker;
+    private volatile boolean closed;
+
+    LineDispatcher(Consumer<String> lineConsumer) {
+        this.lineConsumer = lineConsumer;
+        this.worker = Thread.ofVirtual().name("line-dispatcher").start(this::run);
+    }
+
+    /**
+     * 由读线程调用，队列满时等待回调取走旧行；分发器关闭后（命令已结束或超时）提交的行直接忽略
+     */
+    void submit(String line) {
+        try {
+            while (!closed && worker.isAlive()) {
+                if (queue.offer(line, OFFER_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 停止接收新行，等待已入队的行全部回调完成
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            queue.put(END);
+            worker.join();
+        } catch (InterruptedException e) {
+            worker.interrupt();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        boolean failed = false;
+        try {
+            for (String line = queue.take(); line != END; line = queue.take()) {
+                if (failed) {
+                    continue;
+                }
+                try {
+                    lineConsumer.accept(line);
+                } catch (RuntimeException e) {
+                    // 回调出错后不再回调，继续取出剩余的行直到结束，避免读线程一直等待
+                    failed = true;
+                    log.warn("输出回调异常，后续输出不再回调: {}", e.getMessage(), e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.nexara.server.core.connect.product;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 按行转发通道输出的流，内存占用固定。
+ * <ul>
+ *     <li>每遇到换行就把该行交给分发器，超长的行会被截断；</li>
+ *     <li>累计输出超过上限后不再回调，只继续计数；</li>
+ *     <li>只保留最后若干行，用于失败时的错误信息；</li>
+ *     <li>JSch 关闭该流时（EOF / 通道关闭）发出完成信号。</li>
+ * </ul>
+ * 写入发生在 SSH 客户端的读线程（JSch 会话线程或 MINA 的 IO 线程）中，回调由 {@link LineDispatcher} 在独立线程中执行。
+ * 分发队列满时写入会等待，本地命令由虚拟线程写入，因此用 ReentrantLock 而不是 synchronized，等待时不占住载体线程。
+ */
+class LineOutputStream extends OutputStream {
+
+    private static final int MAX_LINE_BYTES = 8192;
+    private static final int TAIL_LINES = 20;
+
+    private final LineDispatcher dispatcher;
+    private final AtomicLong totalBytes;
+    private final long maxOutputBytes;
+
+    private final ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+    private final Deque<String> tail = new ArrayDeque<>(TAIL_LINES);
+    private final CountDownLatch closed = new CountDownLatch(1);
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * @param dispatcher     stdout 与 stderr 共用的行分发器
+     * @param totalBytes     stdout 与 stderr 共用的字节计数
+     * @param maxOutputBytes 回调的输出总量上限，小于等于 0 表示不限制
+     */
+    LineOutputStream(LineDispatcher dispatcher, AtomicLong totalBytes, long maxOutputBytes) {
+        this.dispatcher = dispatcher;
+        this.totalBytes = totalBytes;
+        this.maxOutputBytes = maxOutputBytes;
+    }
+
+    @Override
+    public void write(int b) {
+        lock.lock();
+        try {
+            append(b);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        lock.lock();
+        try {
+            for (int i = off; i < off + len; i++) {
+                append(b[i]);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed.getCount() == 0) {
+                return;
+            }
+            if (line.size() > 0) {
+                flushLine();
+            }
+            closed.countDown();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    CountDownLatch getClosedSignal() {
+        return closed;
+    }
+
+    /**
+     * 是否因为超过输出上限而丢弃过输出
+     */
+    boolean isTruncated() {
+        return maxOutputBytes > 0 && totalBytes.get() > maxOutputBytes;
+    }
+
+    /**
+     * 最后若干行输出
+     */
+    String getTail() {
+        lock.lock();
+        try {
+            return String.join("\n", tail);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void append(int b) {
+        if (b == '\n') {
+            flushLine();
+        } else if (line.size() < MAX_LINE_BYTES) {
+            line.write(b);
+        }
+    }
+
+    private void flushLine() {
+        int length = line.size();
+        String text = line.toString(StandardCharsets.UTF_8);
+        if (!text.isEmpty() && text.charAt(text.length() - 1) == '\r') {
+            text = text.substring(0, text.length() - 1);
+        }
+        line.reset();
+
+        if (tail.size() == TAIL_LINES) {
+            tail.removeFirst();
+        }
+        tail.addLast(text);
+
+        long total = totalBytes.addAndGet(length + 1L);
+        if (maxOutputBytes > 0 && total > maxOutputBytes) {
+            return;
+        }
+        dispatcher.submit(text);
+    }
+}
@@ -0,0 +1,405 @@
+package com.nexara.server.core.connect.product;
+
+import com.nexara.server.core.exception.connect.CommandExecutionException;
+import com.nexara.server.core.exception.connect.FileTransferException;
+import com.nexara.server.polo.enums.ConnectErrorCode;
+import com.nexara.server.polo.model.ServerInfo;
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * 本机连接：目标服务器就是 nexara 所在主机（或经 localhost 可达）时，
+ * 命令通过 /bin/sh -c 直接在本机执行，文件直接复制，没有 SSH 握手与加解密开销。
+ * 命令以 nexara 进程的用户身份执行，ServerInfo 中的用户名与认证信息不起作用；
+ * 相对路径与 SSH 登录后一样以用户主目录为基准。也可用作集成测试中真实服务器的替身。
+ */
+@Log4j2
+public class LocalConnection implements ServerConnection {
+
+    private static final Path HOME = Paths.get(System.getProperty("user.home"));
+
+    @Getter
+    private final ServerInfo serverInfo;
+    private volatile boolean isClosed = false;
+
+    public LocalConnection(ServerInfo serverInfo) {
+        this.serverInfo = serverInfo;
+        log.debug("本机连接已建立，服务器: {}", serverInfo.getServerId());
+    }
+
+    @Override
+    public String executeCommand(String command) throws CommandExecutionException {
+        return executeCommand(command, SshConnection.DEFAULT_COMMAND_TIMEOUT_MILLIS);
+    }
+
+    @Override
+    public String executeCommand(String command, long timeoutMillis) throws CommandExecutionException {
+        CommandResult result = runCommand(command, timeoutMillis);
+        if (!result.isSuccess()) {
+            log.error("命令执行失败[代码:{}]: {}\n错误输出: {}", result.exitCode(), command, result.stderr());
+            throw new CommandExecutionException(
+                    ConnectErrorCode.COMMAND_EXECUTION_FAILED,
+                    command,
+                    serverInfo.getServerId(),
+                    result.stderr()
+            );
+        }
+
+        log.debug("命令执行成功: {}\n输出: {}", command, result.stdout());
+        return result.stdout();
+    }
+
+    @Override
+    public CommandResult runCommand(String command, long timeoutMillis) throws CommandExecutionException {
+        try {
+            return runCommandAsync(command, timeoutMillis).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("命令执行被中断: {}", command);
+            throw new CommandExecutionException(
+                    ConnectErrorCode.COMMAND_INTERRUPTED,
+                    command,
+                    serverInfo.getServerId(),
+                    "操作被中断"
+            );
+        } catch (ExecutionException e) {
+            throw toCommandException(command, e.getCause(), timeoutMillis);
+        }
+    }
+
+    /**
+     * 进程退出与输出读取完成后结果就绪，超时时强制结束进程
+     */
+    @Override
+    public CompletableFuture<CommandResult> runCommandAsync(String command, long timeoutMillis) {
+        Process process;
+        try {
+            checkConnectionState(command);
+            log.debug("执行命令: {}", command);
+            process = startProcess(command);
+        } catch (CommandExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ByteArrayOutputStream error = new ByteArrayOutputStream();
+        CompletableFuture<Void> outputDone = drain(process.getInputStream(), output);
+        CompletableFuture<Void> errorDone = drain(process.getErrorStream(), error);
+        return CompletableFuture.allOf(process.onExit(), outputDone, errorDone)
+                .thenApply(ignored -> new CommandResult(process.exitValue(),
+                        output.toString(StandardCharsets.UTF_8).trim(), error.toString(StandardCharsets.UTF_8).trim()))
+                .orTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .handle((result, e) -> {
+                    if (e == null) {
+                        return result;
+                    }
+                    destroyProcessTree(process);
+                    throw toCommandException(command, e, timeoutMillis);
+                });
+    }
+
+    @Override
+    public void executeCommandStreaming(String command, Consumer<String> lineConsumer,
+                                        long maxOutputBytes, long timeoutMillis) throws CommandExecutionException {
+        checkConnectionState(command);
+        log.debug("流式执行命令: {}", command);
+        Process process = startProcess(command);
+
+        LineDispatcher dispatcher = new LineDispatcher(lineConsumer);
+        AtomicLong totalBytes = new AtomicLong();
+        LineOutputStream output = new LineOutputStream(dispatcher, totalBytes, maxOutputBytes);
+        LineOutputStream error = new LineOutputStream(dispatcher, totalBytes, maxOutputBytes);
+        CompletableFuture<Void> done = CompletableFuture.allOf(process.onExit(),
+                drain(process.getInputStream(), output), drain(process.getErrorStream(), error));
+
+        try {
+            done.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            destroyProcessTree(process);
+            log.warn("命令执行被中断: {}", command);
+            throw new CommandExecutionException(
+                    ConnectErrorCode.COMMAND_INTERRUPTED,
+                    command,
+                    serverInfo.getServerId(),
+                    "操作被中断"
+            );
+        } catch (TimeoutException | ExecutionException e) {
+            destroyProcessTree(process);
+            throw toCommandException(command, e instanceof ExecutionException ? e.getCause() : e, timeoutMillis);
+        } finally {
+            dispatcher.close();
+        }
+
+        if (error.isTruncated()) {
+            log.warn("命令输出超过上限({}字节)，超出部分已丢弃: {}", maxOutputBytes, command);
+        }
+        int exitCode = process.exitValue();
+        if (exitCode != 0) {
+            String errorOutput = error.getTail();
+            log.error("命令执行失败[代码:{}]: {}\n错误输出: {}", exitCode, command, errorOutput);
+            throw new CommandExecutionException(
+                    ConnectErrorCode.COMMAND_EXECUTION_FAILED,
+                    command,
+                    serverInfo.getServerId(),
+                    errorOutput
+            );
+        }
+        log.debug("命令执行成功: {}，输出 {} 字节", command, totalBytes.get());
+    }
+
+    /**
+     * 结束 shell 及其全部子进程。只结束 shell 时子进程仍持有输出管道，读取输出的线程会一直阻塞。
+     * 先取子进程列表再结束 shell，shell 退出后子进程会被过继，不再属于它的后代
+     */
+    private static void destroyProcessTree(Process process) {
+        List<ProcessHandle> descendants = process.descendants().toList();
+        process.destroyForcibly();
+        descendants.forEach(ProcessHandle::destroyForcibly);
+    }
+
+    private Process startProcess(String command) throws CommandExecutionException {
+        try {
+            return new ProcessBuilder("/bin/sh", "-c", command)
+                    .directory(HOME.toFile())
+                    .redirectInput(ProcessBuilder.Redirect.from(new File("/dev/null")))
+                    .start();
+        } catch (IOException e) {
+            log.error("命令进程启动失败: {}", e.getMessage());
+            throw new CommandExecutionException(
+                    ConnectErrorCode.SHELL_NOT_AVAILABLE,
+                    command,
+                    serverInfo.getServerId(),
+                    e.getMessage()
+            );
+        }
+    }
+
+    /**
+     * 在虚拟线程上把进程输出读到 output，读完后关闭 output。
+     * 不用 transferTo：进程输出流在整个传输期间持有自身的监视器锁，
+     * output 因分发队列满而等待时虚拟线程会占住载体线程，分发回调所在的虚拟线程无法运行
+     */
+    private static CompletableFuture<Void> drain(InputStream input, OutputStream output) {
+        return CompletableFuture.runAsync(() -> {
+            try (input; output) {
+                byte[] buffer = new byte[8192];
+                for (int n = input.read(buffer); n >= 0; n = input.read(buffer)) {
+                    output.write(buffer, 0, n);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, task -> Thread.ofVirtual().start(task));
+    }
+
+    private CommandExecutionException toCommandException(String command, Throwable e, long timeoutMillis) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof CommandExecutionException commandException) {
+            return commandException;
+        }
+        if (cause instanceof TimeoutException) {
+            log.error("命令执行超时: {}", command);
+            return new CommandExecutionException(
+                    ConnectErrorCode.COMMAND_TIMEOUT,
+                    command,
+                    serverInfo.getServerId(),
+                    "操作超时(" + timeoutMillis + "ms)"
+            );
+        }
+        log.error("命令输出读取异常: {}", cause.getMessage());
+        return new CommandExecutionException(
+                ConnectErrorCode.EXEC_CHANNEL_FAILURE,
+                command,
+                serverInfo.getServerId(),
+                cause.getMessage()
+        );
+    }
+
+    /**
+     * 先复制到同目录下的临时文件再原子替换，目标文件不会出现写了一半的状态
+     */
+    @Override
+    public void uploadFile(String localPath, String remotePath) throws FileTransferException {
+        checkConnectionState("文件上传");
+        Path target = resolve(remotePath);
+        Path temp = target.resolveSibling(target.getFileName() + TransferSupport.PARTIAL_SUFFIX);
+
+        try {
+            log.info("开始复制文件: {} -> {}", localPath, target);
+            Files.copy(Paths.get(localPath), temp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("文件复制成功: {}", target);
+        } catch (IOException e) {
+            log.error("文件复制异常: {}", e.getMessage());
+            deleteQuietly(temp);
+            throw new FileTransferException(
+                    ConnectErrorCode.FILE_UPLOAD_FAILED,
+                    serverInfo.getServerId(),
+                    "文件上传失败: " + e.getMessage()
+            );
+        }
+    }
+
+    /**
+     * 本机复制已是磁盘速度，分段并行没有收益，直接整体复制
+     */
+    @Override
+    public void uploadFileParallel(String localPath, String remotePath, int streams, long rangeSize)
+            throws FileTransferException {
+        uploadFile(localPath, remotePath);
+    }
+
+    /**
+     * 整体复制本身就是原子替换，中断后不会留下需要续传的部分文件
+     */
+    @Override
+    public void uploadFileResumable(String localPath, String remotePath, int streams, long rangeSize)
+            throws FileTransferException {
+        uploadFile(localPath, remotePath);
+    }
+
+    /**
+     * 本机没有传输开销，增量计算只会更慢，始终让调用方改用整体复制
+     */
+    @Override
+    public boolean uploadFileDelta(String localPath, String remotePath) throws FileTransferException {
+        return false;
+    }
+
+    @Override
+    public long getFileSize(String remotePath) throws FileTransferException {
+        Path path = resolve(remotePath);
+        try {
+            return Files.exists(path) ? Files.size(path) : -1L;
+        } catch (IOException e) {
+            log.error("文件查询异常: {}", e.getMessage());
+            throw new FileTransferException(
+                    ConnectErrorCode.FILE_IO_ERROR,
+                    serverInfo.getServerId(),
+                    remotePath,
+                    e.getMessage()
+            );
+        }
+    }
+
+    @Override
+    public void makeDirectories(String remoteDir) throws FileTransferException {
+        try {
+            Files.createDirectories(resolve(remoteDir));
+        } catch (IOException e) {
+            log.error("目录创建异常: {}", e.getMessage());
+            throw new FileTransferException(
+                    ConnectErrorCode.DIRECTORY_CREATE_FAILED,
+                    serverInfo.getServerId(),
+                    remoteDir,
+                    e.getMessage()
+            );
+        }
+    }
+
+    @Override
+    public void uploadDirectory(String localDir, String remoteDir) throws FileTransferException {
+        uploadDirectory(localDir, remoteDir, 0);
+    }
+
+    /**
+     * 逐个复制目录下的文件（保留权限），目标结构与 SSH 实现的 tar 解压一致：remoteDir/目录名/...
+     * 本机复制无需压缩，compressionLevel 被忽略。
+     */
+    @Override
+    public void uploadDirectory(String localDir, String remoteDir, int compressionLevel)
+            throws FileTransferException {
+        checkConnectionState("目录上传");
+        Path source = Paths.get(localDir);
+        Path target = resolve(remoteDir).resolve(source.getFileName().toString());
+
+        try {
+            log.info("开始复制目录: {} -> {}", localDir, target);
+            List<Path> paths;
+            try (Stream<Path> walk = Files.walk(source)) {
+                paths = walk.sorted().toList();
+            }
+            for (Path current : paths) {
+                Path destination = target.resolve(source.relativize(current).toString());
+                if (Files.isDirectory(current)) {
+                    Files.createDirectories(destination);
+                } else if (Files.isRegularFile(current)) {
+                    Files.copy(current, destination,
+                            StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+                }
+            }
+            log.info("目录复制成功: {}", target);
+        } catch (IOException e) {
+            log.error("目录复制异常: {}", e.getMessage(), e);
+            throw new FileTransferException(
+                    ConnectErrorCode.FILE_UPLOAD_FAILED,
+                    serverInfo.getServerId(),
+                    "目录上传失败: " + e.getMessage()
+            );
+        }
+    }
+
+    /**
+     * 相对路径以用户主目录为基准，与 SSH/SFTP 登录后的当前目录一致
+     */
+    private static Path resolve(String remotePath) {
+        return HOME.resolve(remotePath);
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("临时文件删除失败: {}", path);
+        }
+    }
+
+    private void checkConnectionState(String currentOperation) throws CommandExecutionException {
+        if (isClosed) {
+            log.error("连接已关闭，操作被拒绝: {}", currentOperation);
+            throw new CommandExecutionException(
+                    ConnectErrorCode.CONNECTION_CLOSED,
+                    currentOperation,
+                    serverInfo.getServerId(),
+                    "连接已被显式关闭"
+            );
+        }
+    }
+
+    @Override
+    public void disconnect() {
+        isClosed = true;
+    }
+
+    @Override
+    public void close() {
+        disconnect();
+    }
+
+    @Override
+    public boolean isConnected() {
+        return !isClosed;
+    }
+}
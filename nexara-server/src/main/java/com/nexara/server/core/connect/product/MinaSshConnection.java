@@ -0,0 +1,732 @@
+package com.nexara.server.core.connect.product;
+
+import com.nexara.server.core.exception.connect.CommandExecutionException;
+import com.nexara.server.core.exception.connect.ConnectionException;
+import com.nexara.server.core.exception.connect.FileTransferException;
+import com.nexara.server.polo.enums.ConnectErrorCode;
+import com.nexara.server.polo.model.ServerInfo;
+import com.nexara.server.util.ShellUtils;
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+import org.apache.sshd.client.SshClient;
+import org.apache.sshd.client.channel.ChannelExec;
+import org.apache.sshd.client.session.ClientSession;
+import org.apache.sshd.common.config.keys.FilePasswordProvider;
+import org.apache.sshd.common.keyprovider.FileKeyPairProvider;
+import org.apache.sshd.sftp.client.SftpClient;
+import org.apache.sshd.sftp.client.SftpClientFactory;
+import org.apache.sshd.sftp.client.impl.AbstractSftpClient;
+import org.apache.sshd.sftp.client.impl.SftpOutputStreamAsync;
+import org.apache.sshd.sftp.common.SftpConstants;
+import org.apache.sshd.sftp.common.SftpException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumSet;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.zip.Deflater;
+
+/**
+ * 基于 Apache MINA SSHD 的 SSH 连接。
+ * 会话与通道的读写都由共享的 {@link SshClient} IO 线程异步完成：命令通道的打开、输出收集与退出
+ * 都以回调驱动，等待中的命令不占用线程，少量 IO 线程即可承载大量并发的远程操作。
+ * 通道数达到上限时新的命令排队，在其他通道关闭时由 IO 线程依次打开，同样不阻塞调用方线程。
+ * 文件查询、建目录等短操作在常驻 SFTP 通道上串行执行；每个上传流各自使用一个 SFTP 通道，
+ * 写请求以流水线方式连续发送，不逐块等待确认。
+ */
+@Log4j2
+public class MinaSshConnection implements ServerConnection {
+
+    private static final long CONNECT_TIMEOUT_MILLIS = 5000L;
+
+    /**
+     * 单个 SFTP 写请求的数据量，多个写请求同时在途
+     */
+    private static final int SFTP_WRITE_BUFFER_SIZE = 32 * 1024;
+
+    private final ClientSession session;
+    private volatile boolean isClosed = false;
+
+    @Getter
+    private final ServerInfo serverInfo;
+
+    /**
+     * 同一会话上可并发使用的通道数，其中一个留给常驻 SFTP 通道，其余由命令与上传共用
+     */
+    @Getter
+    private final int maxChannels;
+    private final Semaphore execPermits;
+    // 等待可用通道的命令与上传，在通道关闭时由 IO 线程依次放行
+    private final Queue<Runnable> pendingChannels = new ConcurrentLinkedQueue<>();
+
+    private final Object sftpLock = new Object();
+    private SftpClient sftpClient;
+
+    public MinaSshConnection(SshClient client, ServerInfo serverInfo, int maxChannels) throws ConnectionException {
+        this.serverInfo = serverInfo;
+        this.maxChannels = maxChannels;
+        this.execPermits = new Semaphore(maxChannels - 1);
+        this.session = initializeSession(client);
+        log.info("SSH连接已建立（MINA），服务器: {}", serverInfo.getHost());
+    }
+
+    private ClientSession initializeSession(SshClient client) throws ConnectionException {
+        String connectionInfo = String.format("%s@%s:%d",
+                serverInfo.getUsername(), serverInfo.getHost(), serverInfo.getPort());
+        int port = serverInfo.getPort() > 0 ? serverInfo.getPort() : 22;
+        ClientSession clientSession;
+        try {
+            clientSession = client.connect(serverInfo.getUsername(), serverInfo.getHost(), port)
+                    .verify(CONNECT_TIMEOUT_MILLIS)
+                    .getSession();
+        } catch (IOException e) {
+            ConnectErrorCode errorCode = ConnectErrorCode.classifyFromMessage(e.getMessage());
+            log.error("SSH连接失败 [{}] - {}: {}", errorCode.name(), connectionInfo, e.getMessage());
+            throw new ConnectionException(errorCode, serverInfo.getServerId(), connectionInfo, e.getMessage());
+        }
+
+        try {
+            if (serverInfo.getPrivateKey() != null) {
+                FileKeyPairProvider keyPairProvider = new FileKeyPairProvider(Paths.get(serverInfo.getPrivateKey()));
+                if (serverInfo.getPassphrase() != null) {
+                    keyPairProvider.setPasswordFinder(FilePasswordProvider.of(serverInfo.getPassphrase()));
+                }
+                clientSession.setKeyIdentityProvider(keyPairProvider);
+                log.debug("使用密钥认证，密钥路径: {}", serverInfo.getPrivateKey());
+            } else {
+                clientSession.addPasswordIdentity(serverInfo.getPassword());
+                log.debug("使用密码认证");
+            }
+            clientSession.auth().verify(CONNECT_TIMEOUT_MILLIS);
+            log.info("SSH会话连接成功 [{}@{}]", serverInfo.getUsername(), serverInfo.getHost());
+            return clientSession;
+        } catch (IOException e) {
+            clientSession.close(true);
+            // 握手已完成，认证阶段的失败（含超时）都归为认证失败
+            log.error("SSH认证失败 - {}: {}", connectionInfo, e.getMessage());
+            throw new ConnectionException(ConnectErrorCode.AUTH_FAILED, serverInfo.getServerId(), connectionInfo, e.getMessage());
+        }
+    }
+
+    @Override
+    public String executeCommand(String command) throws CommandExecutionException {
+        return executeCommand(command, SshConnection.DEFAULT_COMMAND_TIMEOUT_MILLIS);
+    }
+
+    @Override
+    public String executeCommand(String command, long timeoutMillis) throws CommandExecutionException {
+        CommandResult result = runCommand(command, timeoutMillis);
+        if (!result.isSuccess()) {
+            log.error("命令执行失败[代码:{}]: {}\n错误输出: {}", result.exitCode(), command, result.stderr());
+            throw new CommandExecutionException(
+                    ConnectErrorCode.COMMAND_EXECUTION_FAILED,
+                    command,
+                    serverInfo.getServerId(),
+                    result.stderr()
+            );
+        }
+
+        log.debug("命令执行成功: {}\n输出: {}", command, result.stdout());
+        return result.stdout();
+    }
+
+    @Override
+    public CommandResult runCommand(String command, long timeoutMillis) throws CommandExecutionException {
+        try {
+            return runCommandAsync(command, timeoutMillis).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("命令执行被中断: {}", command);
+            throw new CommandExecutionException(
+                    ConnectErrorCode.COMMAND_INTERRUPTED,
+                    command,
+                    serverInfo.getServerId(),
+                    "操作被中断"
+            );
+        } catch (ExecutionException e) {
+            throw toCommandException(command, e.getCause(), timeoutMillis);
+        }
+    }
+
+    /**
+     * 打开通道、收集输出、等待退出都在 IO 线程的回调中完成，调用方线程立即返回
+     */
+    @Override
+    public CompletableFuture<CommandResult> runCommandAsync(String command, long timeoutMillis) {
+        try {
+            checkConnectionState(command);
+        } catch (CommandExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        log.debug("执行命令: {}", command);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ByteArrayOutputStream error = new ByteArrayOutputStream();
+        CompletableFuture<ChannelExec> opened = openExecChannel(command, output, error);
+        return opened.thenCompose(MinaSshConnection::exitStatus)
+                .thenApply(exitCode -> new CommandResult(exitCode, output.toString().trim(), error.toString().trim()))
+                .orTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .handle((result, e) -> {
+                    if (e == null) {
+                        return result;
+                    }
+                    cancelChannel(opened);
+                    throw toCommandException(command, e, timeoutMillis);
+                });
+    }
+
+    @Override
+    public void executeCommandStreaming(String command, Consumer<String> lineConsumer,
+                                        long maxOutputBytes, long timeoutMillis) throws CommandExecutionException {
+        checkConnectionState(command);
+        log.debug("流式执行命令: {}", command);
+
+        LineDispatcher dispatcher = new LineDispatcher(lineConsumer);
+        AtomicLong totalBytes = new AtomicLong();
+        LineOutputStream output = new LineOutputStream(dispatcher, totalBytes, maxOutputBytes);
+        LineOutputStream error = new LineOutputStream(dispatcher, totalBytes, maxOutputBytes);
+        CompletableFuture<ChannelExec> opened = openExecChannel(command, output, error);
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+
+        try {
+            ChannelExec channel = await(opened, command, timeoutMillis);
+            int exitCode = await(exitStatus(channel), command, deadline - System.currentTimeMillis());
+            // 输出最后一行可能没有换行，关闭时转发
+            output.close();
+            error.close();
+
+            if (error.isTruncated()) {
+                log.warn("命令输出超过上限({}字节)，超出部分已丢弃: {}", maxOutputBytes, command);
+            }
+            if (exitCode != 0) {
+                String errorOutput = error.getTail();
+                log.error("命令执行失败[代码:{}]: {}\n错误输出: {}", exitCode, command, errorOutput);
+                throw new CommandExecutionException(
+                        ConnectErrorCode.COMMAND_EXECUTION_FAILED,
+                        command,
+                        serverInfo.getServerId(),
+                        errorOutput
+                );
+            }
+
+            log.debug("命令执行成功: {}，输出 {} 字节", command, totalBytes.get());
+        } finally {
+            cancelChannel(opened);
+            // 等待已收到的输出全部回调完成，调用方据此判断执行进度
+            dispatcher.close();
+        }
+    }
+
+    @Override
+    public void uploadFile(String localPath, String remotePath) throws FileTransferException {
+        checkConnectionState("文件上传");
+
+        try (InputStream input = Files.newInputStream(Paths.get(localPath))) {
+            log.info("开始上传文件: {} -> {}", localPath, remotePath);
+            withTransferChannel(sftp -> {
+                try (OutputStream output = openRemoteOutput(sftp, remotePath, 0, true)) {
+                    input.transferTo(output);
+                }
+                return sftp.stat(remotePath);
+            });
+            log.info("文件上传成功: {}", remotePath);
+        } catch (Exception e) {
+            log.error("文件上传异常: {}", e.getMessage());
+            throw new FileTransferException(
+                    ConnectErrorCode.FILE_UPLOAD_FAILED,
+                    serverInfo.getServerId(),
+                    "文件上传失败: " + e.getMessage()
+            );
+        }
+    }
+
+    @Override
+    public void uploadFileParallel(String localPath, String remotePath, int streams, long rangeSize)
+            throws FileTransferException {
+        checkConnectionState("并行文件上传");
+        Path localFile = Paths.get(localPath);
+
+        try (FileChannel file = FileChannel.open(localFile, StandardOpenOption.READ)) {
+            long size = file.size();
+            int workers = TransferSupport.parallelWorkers(streams, size, rangeSize, maxChannels - 1);
+            if (workers <= 1) {
+                uploadFile(localPath, remotePath);
+                return;
+            }
+
+            log.info("开始并行上传文件: {} -> {}，{} 路并发", localPath, remotePath, workers);
+            // 先截断旧文件，各分段随后按偏移写入，不会互相截断
+            withSftp(sftp -> {
+                sftp.open(remotePath, SftpClient.OpenMode.Write, SftpClient.OpenMode.Create,
+                        SftpClient.OpenMode.Truncate).close();
+                return null;
+            });
+            writeRangesParallel(file, remotePath, 0, size, workers, rangeSize);
+
+            TransferSupport.verifyRemoteFile(this, localFile, remotePath, size);
+            log.info("并行上传文件成功: {}", remotePath);
+        } catch (Exception e) {
+            throw TransferSupport.wrapUploadException(serverInfo, remotePath, "并行上传", e);
+        }
+    }
+
+    @Override
+    public void uploadFileResumable(String localPath, String remotePath, int streams, long rangeSize)
+            throws FileTransferException {
+        checkConnectionState("断点续传");
+        Path localFile = Paths.get(localPath);
+        String partialPath = remotePath + TransferSupport.PARTIAL_SUFFIX;
+
+        try (FileChannel file = FileChannel.open(localFile, StandardOpenOption.READ)) {
+            long size = file.size();
+            if (size == 0) {
+                // 同样先写 .part 再 mv，目标可能是缓存对象的硬链接，原地截断会清空缓存对象
+                executeCommand(String.format(": > %s && mv -f %s %s", ShellUtils.quote(partialPath),
+                        ShellUtils.quote(partialPath), ShellUtils.quote(remotePath)));
+                log.info("断点续传完成（空文件）: {}", remotePath);
+                return;
+            }
+
+            // 协商续传偏移：远程已有部分按块比对摘要，取最后一个连续一致的块结尾
+            long remoteSize = getFileSize(partialPath);
+            long offset = remoteSize > 0
+                    ? TransferSupport.negotiateResumeOffset(this, file, partialPath, Math.min(remoteSize, size)) : 0;
+            if (remoteSize >= 0 && remoteSize != offset) {
+                executeCommand("truncate -s " + offset + " " + ShellUtils.quote(partialPath));
+            }
+            log.info("开始断点续传: {} -> {}，已有 {} 字节，续传偏移 {}", localPath, partialPath, Math.max(remoteSize, 0), offset);
+
+            if (offset < size) {
+                int workers = TransferSupport.parallelWorkers(streams, size - offset, rangeSize, maxChannels - 1);
+                if (workers > 1) {
+                    writeRangesParallel(file, partialPath, offset, size, workers, rangeSize);
+                } else {
+                    withTransferChannel(sftp -> {
+                        try (OutputStream output = openRemoteOutput(sftp, partialPath, offset, false)) {
+                            TransferSupport.copyRange(file, output, offset, size);
+                        }
+                        return null;
+                    });
+                }
+            }
+
+            TransferSupport.verifyRemoteFile(this, localFile, partialPath, size);
+
+            // 同一文件系统内 mv 即 rename(2)，替换是原子的
+            executeCommand("mv -f " + ShellUtils.quote(partialPath) + " " + ShellUtils.quote(remotePath));
+            log.info("断点续传完成: {}", remotePath);
+        } catch (Exception e) {
+            throw TransferSupport.wrapUploadException(serverInfo, remotePath, "断点续传", e);
+        }
+    }
+
+    @Override
+    public boolean uploadFileDelta(String localPath, String remotePath) throws FileTransferException {
+        checkConnectionState("增量上传");
+        return TransferSupport.uploadFileDelta(this, localPath, remotePath);
+    }
+
+    /**
+     * 多个上传线程并发写入 [from, size) 区间内的各分段，每个线程独占一个 SFTP 通道
+     */
+    private void writeRangesParallel(FileChannel file, String remotePath, long from, long size,
+                                     int workers, long rangeSize) throws ExecutionException, InterruptedException {
+        int rangeCount = (int) ((size - from + rangeSize - 1) / rangeSize);
+        AtomicInteger nextRange = new AtomicInteger();
+        TransferSupport.runWorkers(workers, () -> withTransferChannel(sftp -> {
+            int range;
+            while ((range = nextRange.getAndIncrement()) < rangeCount) {
+                long start = from + range * rangeSize;
+                long end = Math.min(start + rangeSize, size);
+                try (OutputStream output = openRemoteOutput(sftp, remotePath, start, false)) {
+                    TransferSupport.copyRange(file, output, start, end);
+                }
+                log.debug("分段上传完成 [{}]: {}-{}", remotePath, start, end);
+            }
+            return null;
+        }));
+    }
+
+    /**
+     * 打开从 offset 开始写入的远程输出流，写请求流水线发送，关闭时等待全部确认
+     *
+     * @param truncate 是否先截断远程文件；不截断时可在任意偏移写入而不影响文件其他部分
+     */
+    private static OutputStream openRemoteOutput(SftpClient sftp, String remotePath, long offset, boolean truncate)
+            throws IOException {
+        EnumSet<SftpClient.OpenMode> modes = EnumSet.of(SftpClient.OpenMode.Write, SftpClient.OpenMode.Create);
+        if (truncate) {
+            modes.add(SftpClient.OpenMode.Truncate);
+        }
+        SftpOutputStreamAsync output = new SftpOutputStreamAsync(
+                (AbstractSftpClient) sftp, SFTP_WRITE_BUFFER_SIZE, remotePath, modes);
+        output.setOffset(offset);
+        return output;
+    }
+
+    @Override
+    public long getFileSize(String remotePath) throws FileTransferException {
+        try {
+            return withSftp(sftp -> sftp.stat(remotePath).getSize());
+        } catch (SftpException e) {
+            if (e.getStatus() == SftpConstants.SSH_FX_NO_SUCH_FILE) {
+                return -1L;
+            }
+            throw sftpFailure(remotePath, e);
+        } catch (IOException e) {
+            throw sftpFailure(remotePath, e);
+        }
+    }
+
+    private FileTransferException sftpFailure(String remotePath, IOException e) {
+        log.error("远程文件查询异常: {}", e.getMessage());
+        return new FileTransferException(
+                ConnectErrorCode.SFTP_FAILURE,
+                serverInfo.getServerId(),
+                remotePath,
+                e.getMessage()
+        );
+    }
+
+    @Override
+    public void makeDirectories(String remoteDir) throws FileTransferException {
+        try {
+            withSftp(sftp -> {
+                StringBuilder current = new StringBuilder(remoteDir.startsWith("/") ? "/" : "");
+                for (String part : remoteDir.split("/")) {
+                    if (part.isEmpty()) {
+                        continue;
+                    }
+                    current.append(part);
+                    try {
+                        sftp.stat(current.toString());
+                    } catch (SftpException e) {
+                        if (e.getStatus() != SftpConstants.SSH_FX_NO_SUCH_FILE) {
+                            throw e;
+                        }
+                        sftp.mkdir(current.toString());
+                    }
+                    current.append('/');
+                }
+                return null;
+            });
+        } catch (IOException e) {
+            log.error("远程目录创建异常: {}", e.getMessage());
+            throw new FileTransferException(
+                    ConnectErrorCode.DIRECTORY_CREATE_FAILED,
+                    serverInfo.getServerId(),
+                    remoteDir,
+                    e.getMessage()
+            );
+        }
+    }
+
+    @Override
+    public void uploadDirectory(String localDir, String remoteDir) throws FileTransferException {
+        uploadDirectory(localDir, remoteDir, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * 以 tar 流的形式上传目录：本地边打包边写入 exec 通道的标准输入，远程 tar 直接解压
+     */
+    @Override
+    public void uploadDirectory(String localDir, String remoteDir, int compressionLevel)
+            throws FileTransferException {
+        checkConnectionState("目录上传");
+        String command = TransferSupport.extractCommand(remoteDir, compressionLevel);
+        ByteArrayOutputStream error = new ByteArrayOutputStream();
+        CompletableFuture<ChannelExec> opened = openExecChannel(command, new ByteArrayOutputStream(), error);
+
+        try {
+            log.info("开始流式上传目录: {} -> {}（压缩级别: {}）", localDir, remoteDir,
+                    compressionLevel != 0 ? compressionLevel : "不压缩");
+            ChannelExec channel = await(opened, command, SshConnection.DEFAULT_COMMAND_TIMEOUT_MILLIS);
+            CompletableFuture<Integer> exited = exitStatus(channel);
+            // 打包完成后关闭输出流，即向远程发送 EOF
+            TransferSupport.writeDirectoryArchive(channel.getInvertedIn(), Paths.get(localDir), compressionLevel);
+
+            int exitCode = await(exited, command, SshConnection.DEFAULT_COMMAND_TIMEOUT_MILLIS);
+            if (exitCode != 0) {
+                log.error("远程解压失败[代码:{}]: {}", exitCode, error.toString().trim());
+                throw new FileTransferException(
+                        ConnectErrorCode.COMMAND_EXECUTION_FAILED,
+                        serverInfo.getServerId(),
+                        "远程解压失败: " + error.toString().trim()
+                );
+            }
+
+            log.info("目录上传成功: {}", remoteDir);
+        } catch (IOException e) {
+            log.error("目录打包/上传异常: {}", e.getMessage(), e);
+            throw new FileTransferException(
+                    ConnectErrorCode.FILE_UPLOAD_FAILED,
+                    serverInfo.getServerId(),
+                    "目录上传失败: " + e.getMessage()
+            );
+        } catch (CommandExecutionException e) {
+            log.error("远程解压异常: {}", e.getMessage(), e);
+            throw new FileTransferException(
+                    ConnectErrorCode.COMMAND_EXECUTION_FAILED,
+                    serverInfo.getServerId(),
+                    "远程解压失败: " + e.getMessage()
+            );
+        } finally {
+            cancelChannel(opened);
+        }
+    }
+
+    /**
+     * 异步打开 exec 通道，通道打开后 Future 完成；通道数已满时排队，不阻塞调用方
+     */
+    private CompletableFuture<ChannelExec> openExecChannel(String command, OutputStream output, OutputStream error) {
+        CompletableFuture<ChannelExec> opened = new CompletableFuture<>();
+        whenChannelAvailable(() -> {
+            // 排队期间调用方已超时或放弃
+            if (opened.isDone()) {
+                releaseChannel();
+                return;
+            }
+            ChannelExec channel;
+            try {
+                channel = session.createExecChannel(command);
+            } catch (IOException | RuntimeException e) {
+                releaseChannel();
+                opened.completeExceptionally(e);
+                return;
+            }
+            channel.setOut(output);
+            channel.setErr(error);
+            channel.addCloseFutureListener(future -> releaseChannel());
+            try {
+                channel.open().addListener(future -> {
+                    if (!future.isOpened()) {
+                        opened.completeExceptionally(future.getException() != null
+                                ? future.getException() : new IOException("通道打开失败"));
+                        channel.close(true);
+                    } else if (!opened.complete(channel)) {
+                        channel.close(true);
+                    }
+                });
+            } catch (IOException | RuntimeException e) {
+                opened.completeExceptionally(e);
+                channel.close(true);
+            }
+        });
+        return opened;
+    }
+
+    /**
+     * 通道关闭时完成，结果为退出码；未收到退出码（如被信号终止）时为 -1
+     */
+    private static CompletableFuture<Integer> exitStatus(ChannelExec channel) {
+        CompletableFuture<Integer> exited = new CompletableFuture<>();
+        channel.addCloseFutureListener(future -> {
+            Integer exitStatus = channel.getExitStatus();
+            exited.complete(exitStatus != null ? exitStatus : -1);
+        });
+        return exited;
+    }
+
+    /**
+     * 放弃尚未打开的通道，关闭已打开的通道；通道已正常关闭时无影响
+     */
+    private static void cancelChannel(CompletableFuture<ChannelExec> opened) {
+        opened.completeExceptionally(new IOException("已取消"));
+        opened.thenAccept(channel -> channel.close(true));
+    }
+
+    private void whenChannelAvailable(Runnable task) {
+        if (execPermits.tryAcquire()) {
+            task.run();
+            return;
+        }
+        pendingChannels.add(task);
+        // 入队前通道可能恰好已全部释放
+        drainPendingChannels();
+    }
+
+    private void releaseChannel() {
+        execPermits.release();
+        drainPendingChannels();
+    }
+
+    private void drainPendingChannels() {
+        while (!pendingChannels.isEmpty() && execPermits.tryAcquire()) {
+            Runnable task = pendingChannels.poll();
+            if (task == null) {
+                execPermits.release();
+                return;
+            }
+            task.run();
+        }
+    }
+
+    private <T> T await(CompletableFuture<T> future, String command, long timeoutMillis)
+            throws CommandExecutionException {
+        try {
+            return future.get(Math.max(timeoutMillis, 0), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("命令执行被中断: {}", command);
+            throw new CommandExecutionException(
+                    ConnectErrorCode.COMMAND_INTERRUPTED,
+                    command,
+                    serverInfo.getServerId(),
+                    "操作被中断"
+            );
+        } catch (TimeoutException | ExecutionException e) {
+            throw toCommandException(command, e instanceof ExecutionException ? e.getCause() : e, timeoutMillis);
+        }
+    }
+
+    private CommandExecutionException toCommandException(String command, Throwable e, long timeoutMillis) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof CommandExecutionException commandException) {
+            return commandException;
+        }
+        if (cause instanceof TimeoutException) {
+            log.error("命令执行超时: {}", command);
+            return new CommandExecutionException(
+                    ConnectErrorCode.COMMAND_TIMEOUT,
+                    command,
+                    serverInfo.getServerId(),
+                    "操作超时(" + timeoutMillis + "ms)"
+            );
+        }
+        log.error("命令通道异常: {}", cause.getMessage());
+        return new CommandExecutionException(
+                ConnectErrorCode.CHANNEL_FAILURE,
+                command,
+                serverInfo.getServerId(),
+                cause.getMessage()
+        );
+    }
+
+    /**
+     * 在常驻的 SFTP 通道上执行短操作。
+     * 通道在首次使用时创建，失效后自动重建；MINA 的 SFTP 客户端不支持多个线程同时发送请求，因此串行执行。
+     */
+    private <T> T withSftp(SftpOperation<T> operation) throws IOException {
+        checkConnectionState("SFTP");
+        synchronized (sftpLock) {
+            if (sftpClient != null && !sftpClient.isOpen()) {
+                log.warn("SFTP通道已失效，重新打开: {}", serverInfo.getHost());
+                sftpClient = null;
+            }
+            if (sftpClient == null) {
+                sftpClient = SftpClientFactory.instance().createSftpClient(session);
+                log.debug("SFTP通道已打开: {}", serverInfo.getHost());
+            }
+            return operation.run(sftpClient);
+        }
+    }
+
+    /**
+     * 在一个独占的 SFTP 通道上执行上传，用完即关闭。
+     * 通道与命令共用通道配额，配额已满时等待其他通道释放。
+     */
+    private <T> T withTransferChannel(SftpOperation<T> operation) throws IOException {
+        checkConnectionState("SFTP");
+        CompletableFuture<Void> permit = new CompletableFuture<>();
+        whenChannelAvailable(() -> {
+            if (!permit.complete(null)) {
+                releaseChannel();
+            }
+        });
+        try {
+            permit.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (!permit.cancel(false)) {
+                releaseChannel();
+            }
+            throw new InterruptedIOException("等待可用通道时被中断");
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+
+        try (SftpClient sftp = SftpClientFactory.instance().createSftpClient(session)) {
+            return operation.run(sftp);
+        } finally {
+            releaseChannel();
+        }
+    }
+
+    @FunctionalInterface
+    private interface SftpOperation<T> {
+        T run(SftpClient sftp) throws IOException;
+    }
+
+    /**
+     * 排队等待可用通道的命令数
+     */
+    public int getPendingChannels() {
+        return pendingChannels.size();
+    }
+
+    /**
+     * 当前会话上正在使用的 exec 通道数
+     */
+    public int getActiveChannels() {
+        return maxChannels - 1 - execPermits.availablePermits();
+    }
+
+    private void checkConnectionState(String currentOperation) throws CommandExecutionException {
+        if (isClosed) {
+            log.error("连接已关闭，操作被拒绝: {}", currentOperation);
+            throw new CommandExecutionException(
+                    ConnectErrorCode.CONNECTION_CLOSED,
+                    currentOperation,
+                    serverInfo.getServerId(),
+                    "连接已被显式关闭"
+            );
+        } else if (!isConnected()) {
+            log.error("连接未激活，操作被拒绝: {}", currentOperation);
+            throw new CommandExecutionException(
+                    ConnectErrorCode.NOT_CONNECTED,
+                    currentOperation,
+                    serverInfo.getServerId(),
+                    "连接已断开"
+            );
+        }
+    }
+
+    @Override
+    public synchronized void disconnect() {
+        if (!isClosed) {
+            log.info("正在关闭SSH连接...");
+            isClosed = true;
+            // 关闭会话会关闭其上的全部通道（含 SFTP），排队中的命令随通道释放依次失败
+            session.close(true);
+            log.info("SSH连接已关闭");
+        }
+    }
+
+    @Override
+    public void close() {
+        disconnect();
+    }
+
+    @Override
+    public boolean isConnected() {
+        return !isClosed && session.isOpen() && session.isAuthenticated();
+    }
+}
@@ -4,6 +4,9 @@ import com.nexara.server.core.exception.connect.CommandExecutionException;
 import com.nexara.server.core.exception.connect.FileTransferException;
 import com.nexara.server.polo.model.ServerInfo;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
 /**
  * 定义服务端连接的抽象接口，不同协议（SSH/FTP/HTTP 等）实现各自的逻辑。
  */
@@ -18,6 +21,54 @@ public interface ServerConnection extends AutoCloseable {
      */
     String executeCommand(String command) throws CommandExecutionException;
 
+    /**
+     * 在远程服务器上执行命令，并指定本次命令的超时时间。
+     *
+     * @param command       要执行的命令
+     * @param timeoutMillis 命令执行超时时间（毫秒）
+     * @return 命令输出结果
+     * @throws CommandExecutionException 执行失败或超时时抛出
+     */
+    String executeCommand(String command, long timeoutMillis) throws CommandExecutionException;
+
+    /**
+     * 在远程服务器上执行命令并返回退出码与输出，退出码非 0 时不抛出异常。
+     *
+     * @param command       要执行的命令
+     * @param timeoutMillis 命令执行超时时间（毫秒）
+     * @return 执行结果
+     * @throws CommandExecutionException 通道异常或超时时抛出
+     */
+    CommandResult runCommand(String command, long timeoutMillis) throws CommandExecutionException;
+
+    /**
+     * 异步执行命令，语义同 {@link #runCommand(String, long)}，异常通过返回的 Future 传递。
+     * 默认实现在虚拟线程上调用 runCommand；基于异步客户端的实现直接在 IO 线程上完成，不占用线程等待。
+     *
+     * @param command       要执行的命令
+     * @param timeoutMillis 命令执行超时时间（毫秒）
+     * @return 执行结果
+     */
+    default CompletableFuture<CommandResult> runCommandAsync(String command, long timeoutMillis) {
+        return CompletableFuture.supplyAsync(() -> runCommand(command, timeoutMillis),
+                task -> Thread.ofVirtual().start(task));
+    }
+
+    /**
+     * 以流式方式在远程服务器上执行命令。
+     * 输出（stdout 与 stderr）每产生一行就回调一次，不在内存中保留完整输出，
+     * 适用于 apt-get install、docker build 等输出量大、耗时长的命令。
+     *
+     * @param command        要执行的命令
+     * @param lineConsumer   每行输出的回调，在独立线程中串行执行，方法返回前全部回调完成；
+     *                       回调积压超过队列容量时暂停读取输出等待回调赶上，不丢弃输出
+     * @param maxOutputBytes 回调的输出总量上限（字节），超出部分丢弃；小于等于 0 表示不限制
+     * @param timeoutMillis  命令执行超时时间（毫秒）
+     * @throws CommandExecutionException 执行失败或超时时抛出，错误信息为最后若干行错误输出
+     */
+    void executeCommandStreaming(String command, Consumer<String> lineConsumer,
+                                 long maxOutputBytes, long timeoutMillis) throws CommandExecutionException;
+
     /**
      * 上传文件到远程服务器。
      *
@@ -27,6 +78,59 @@ public interface ServerConnection extends AutoCloseable {
      */
     void uploadFile(String localPath, String remotePath) throws FileTransferException;
 
+    /**
+     * 并行上传大文件：把文件切分成若干分段，通过多个 SFTP 通道同时写入各自的偏移，完成后校验大小与 SHA-256。
+     *
+     * @param localPath  本地文件路径
+     * @param remotePath 远程文件路径
+     * @param streams    并发通道数
+     * @param rangeSize  分段大小（字节）
+     * @throws FileTransferException 传输或校验失败时抛出
+     */
+    void uploadFileParallel(String localPath, String remotePath, int streams, long rangeSize)
+            throws FileTransferException;
+
+    /**
+     * 断点续传：先写入 remotePath.part，已有部分按块比对摘要后从最后一致的偏移继续，
+     * 校验通过后原子重命名为 remotePath。失败后再次调用会自动续传。
+     *
+     * @param localPath  本地文件路径
+     * @param remotePath 远程文件路径
+     * @param streams    并发通道数，1 表示顺序写入
+     * @param rangeSize  并行写入时的分段大小（字节）
+     * @throws FileTransferException 传输或校验失败时抛出
+     */
+    void uploadFileResumable(String localPath, String remotePath, int streams, long rangeSize)
+            throws FileTransferException;
+
+    /**
+     * 增量上传：以远程已有的同名旧文件为基准，只传输变化的块和补丁指令，在远程拼出新文件并原子替换。
+     *
+     * @param localPath  本地文件路径
+     * @param remotePath 远程文件路径（同时也是增量基准）
+     * @return false 表示未增量传输（远程无旧文件、缺少 python3、文件过大、与旧文件差异过大或增量过程失败），
+     *         远程文件保持不变，调用方应改用其他上传方式
+     * @throws FileTransferException 读取本地或远程文件信息失败时抛出
+     */
+    boolean uploadFileDelta(String localPath, String remotePath) throws FileTransferException;
+
+    /**
+     * 查询远程文件大小。
+     *
+     * @param remotePath 远程文件路径
+     * @return 文件字节数，文件不存在时返回 -1
+     * @throws FileTransferException 查询失败时抛出
+     */
+    long getFileSize(String remotePath) throws FileTransferException;
+
+    /**
+     * 在远程服务器上逐级创建目录（已存在则忽略）。
+     *
+     * @param remoteDir 远程目录路径
+     * @throws FileTransferException 创建失败时抛出
+     */
+    void makeDirectories(String remoteDir) throws FileTransferException;
+
     /**
      * 上传整个目录到远程服务器（包括子目录和文件）
      *
@@ -36,6 +140,16 @@ public interface ServerConnection extends AutoCloseable {
      */
     void uploadDirectory(String localDir, String remoteDir) throws FileTransferException;
 
+    /**
+     * 上传整个目录到远程服务器，并指定 gzip 压缩级别。
+     *
+     * @param localDir         本地目录路径
+     * @param remoteDir        远程目录路径
+     * @param compressionLevel gzip 压缩级别 1-9，-1 为默认级别，0 表示不压缩（适合高速内网）
+     * @throws FileTransferException 传输失败时抛出
+     */
+    void uploadDirectory(String localDir, String remoteDir, int compressionLevel) throws FileTransferException;
+
     /**
      * 断开连接。
      */
@@ -6,10 +6,22 @@ import com.nexara.server.core.exception.connect.ConnectionException;
 import com.nexara.server.core.exception.connect.FileTransferException;
 import com.nexara.server.polo.enums.ConnectErrorCode;
 import com.nexara.server.polo.model.ServerInfo;
+import com.nexara.server.util.ShellUtils;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.zip.Deflater;
 
 import lombok.Getter;
 import lombok.extern.log4j.Log4j2;
@@ -17,17 +29,44 @@ import lombok.extern.log4j.Log4j2;
 @Log4j2
 public class SshConnection implements ServerConnection, AutoCloseable {
 
+    /**
+     * 默认命令执行超时时间（毫秒）
+     */
+    public static final long DEFAULT_COMMAND_TIMEOUT_MILLIS = 35000L;
+
+    /**
+     * 单个会话默认允许同时打开的通道数，与 OpenSSH 的 MaxSessions 默认值一致
+     */
+    public static final int DEFAULT_MAX_CHANNELS = 10;
+
     private final JSch jsch = new JSch();
     private Session session;
-    private boolean isClosed = false;
+    private volatile boolean isClosed = false;
 
     @Getter
     private final ServerInfo serverInfo;
 
+    /**
+     * 同一会话上可并发使用的通道数（exec / sftp 共用）
+     */
+    @Getter
+    private final int maxChannels;
+    private final Semaphore channelPermits;
+
+    // 常驻 SFTP 通道，首次使用时创建
+    private final Object sftpLock = new Object();
+    private ChannelSftp sftpChannel;
+
     public SshConnection(ServerInfo serverInfo) throws ConnectionException {
+        this(serverInfo, DEFAULT_MAX_CHANNELS);
+    }
+
+    public SshConnection(ServerInfo serverInfo, int maxChannels) throws ConnectionException {
         this.serverInfo = serverInfo;
+        this.maxChannels = maxChannels;
+        this.channelPermits = new Semaphore(maxChannels, true);
         initializeSession();
-        startKeepaliveThread();
+        SshKeepaliveScheduler.getInstance().register(this);
         log.info("SSH连接已建立，服务器: {}", serverInfo.getHost());
     }
 
@@ -67,48 +106,108 @@ public class SshConnection implements ServerConnection, AutoCloseable {
         }
     }
 
-    private void startKeepaliveThread() {
-        Thread keepaliveThread = new Thread(() -> {
-            while (!isClosed && isConnected()) {
-                try {
-                    Thread.sleep(30000L);
-                    if (!isClosed) {
-                        executeCommand("echo 心跳检测 > /dev/null");
-                        log.trace("心跳检测成功");
-                    }
-                } catch (Exception e) {
-                    log.warn("心跳检测异常: {}", e.getMessage());
-                }
-            }
-            log.info("心跳线程已终止");
-        });
-
-        keepaliveThread.setDaemon(true);
-        keepaliveThread.setName("SSH-Keepalive-" + serverInfo.getHost());
-        keepaliveThread.start();
+    /**
+     * 发送一次协议层心跳。
+     *
+     * @return false 表示会话已失效
+     */
+    boolean sendKeepalive() {
+        if (!isConnected()) {
+            return false;
+        }
+        try {
+            session.sendKeepAliveMsg();
+            log.trace("心跳检测成功");
+            return true;
+        } catch (Exception e) {
+            log.warn("心跳检测异常: {}", e.getMessage());
+            return false;
+        }
     }
 
     public String executeCommand(String command) throws CommandExecutionException {
+        return executeCommand(command, DEFAULT_COMMAND_TIMEOUT_MILLIS);
+    }
+
+    @Override
+    public String executeCommand(String command, long timeoutMillis) throws CommandExecutionException {
+        CommandResult result = runCommand(command, timeoutMillis);
+        if (!result.isSuccess()) {
+            log.error("命令执行失败[代码:{}]: {}\n错误输出: {}", result.exitCode(), command, result.stderr());
+            throw new CommandExecutionException(
+                    ConnectErrorCode.COMMAND_EXECUTION_FAILED,
+                    command,
+                    serverInfo.getServerId(),
+                    result.stderr()
+            );
+        }
+
+        log.debug("命令执行成功: {}\n输出: {}", command, result.stdout());
+        return result.stdout();
+    }
+
+    @Override
+    public CommandResult runCommand(String command, long timeoutMillis) throws CommandExecutionException {
         checkConnectionState(command);
         ChannelExec channel = null;
 
         try {
             log.debug("执行命令: {}", command);
-            channel = (ChannelExec) session.openChannel("exec");
+            channel = openChannel("exec", command);
             channel.setCommand(command);
             channel.setInputStream(null);
 
             ByteArrayOutputStream output = new ByteArrayOutputStream();
-            ByteArrayOutputStream error = new ByteArrayOutputStream();
+            ChannelCompletionStream error = new ChannelCompletionStream();
+            channel.setOutputStream(output);
+            channel.setErrStream(error);
+
+            channel.connect();
+            waitForChannelClosed(error.getClosedSignal(), command, timeoutMillis);
+
+            return new CommandResult(channel.getExitStatus(), output.toString().trim(), error.toString().trim());
+        } catch (JSchException e) {
+            log.error("命令通道异常: {}", e.getMessage());
+            throw new CommandExecutionException(
+                    ConnectErrorCode.CHANNEL_FAILURE,
+                    command,
+                    serverInfo.getServerId(),
+                    e.getMessage()
+            );
+        } finally {
+            releaseChannel(channel);
+        }
+    }
+
+    @Override
+    public void executeCommandStreaming(String command, Consumer<String> lineConsumer,
+                                        long maxOutputBytes, long timeoutMillis) throws CommandExecutionException {
+        checkConnectionState(command);
+        ChannelExec channel = null;
+        LineDispatcher dispatcher = new LineDispatcher(lineConsumer);
+
+        try {
+            log.debug("流式执行命令: {}", command);
+            channel = openChannel("exec", command);
+            channel.setCommand(command);
+            channel.setInputStream(null);
+
+            AtomicLong totalBytes = new AtomicLong();
+            LineOutputStream output = new LineOutputStream(dispatcher, totalBytes, maxOutputBytes);
+            LineOutputStream error = new LineOutputStream(dispatcher, totalBytes, maxOutputBytes);
             channel.setOutputStream(output);
             channel.setErrStream(error);
 
             channel.connect();
-            waitForChannelClosed(channel, command);
+            waitForChannelClosed(error.getClosedSignal(), command, timeoutMillis);
+
+            if (error.isTruncated()) {
+                log.warn("命令输出超过上限({}字节)，超出部分已丢弃: {}", maxOutputBytes, command);
+            }
 
             int exitCode = channel.getExitStatus();
-            String errorOutput = error.toString().trim();
             if (exitCode != 0) {
+                String errorOutput = error.getTail();
                 log.error("命令执行失败[代码:{}]: {}\n错误输出: {}", exitCode, command, errorOutput);
                 throw new CommandExecutionException(
                         ConnectErrorCode.COMMAND_EXECUTION_FAILED,
@@ -118,9 +217,7 @@ public class SshConnection implements ServerConnection, AutoCloseable {
                 );
             }
 
-            String result = output.toString().trim();
-            log.debug("命令执行成功: {}\n输出: {}", command, result);
-            return result;
+            log.debug("命令执行成功: {}，输出 {} 字节", command, totalBytes.get());
         } catch (JSchException e) {
             log.error("命令通道异常: {}", e.getMessage());
             throw new CommandExecutionException(
@@ -130,29 +227,29 @@ public class SshConnection implements ServerConnection, AutoCloseable {
                     e.getMessage()
             );
         } finally {
-            if (channel != null) {
-                channel.disconnect();
-            }
+            releaseChannel(channel);
+            // 等待已收到的输出全部回调完成，调用方据此判断执行进度
+            dispatcher.close();
         }
     }
 
     public void uploadFile(String localPath, String remotePath) throws FileTransferException {
         checkConnectionState("文件上传");
-        ChannelSftp channel = null;
 
         try (InputStream input = Files.newInputStream(Paths.get(localPath))) {
             log.info("开始上传文件: {} -> {}", localPath, remotePath);
-            channel = (ChannelSftp) session.openChannel("sftp");
-            channel.connect(30000);
-            channel.put(input, remotePath);
+            withSftp("文件上传", channel -> {
+                channel.put(input, remotePath);
 
-            if (channel.stat(remotePath) == null) {
-                throw new FileTransferException(
-                        ConnectErrorCode.FILE_UPLOAD_FAILED,
-                        serverInfo.getServerId(),
-                        "文件上传验证失败"
-                );
-            }
+                if (channel.stat(remotePath) == null) {
+                    throw new FileTransferException(
+                            ConnectErrorCode.FILE_UPLOAD_FAILED,
+                            serverInfo.getServerId(),
+                            "文件上传验证失败"
+                    );
+                }
+                return null;
+            });
 
             log.info("文件上传成功: {}", remotePath);
         } catch (Exception e) {
@@ -162,50 +259,259 @@ public class SshConnection implements ServerConnection, AutoCloseable {
                     serverInfo.getServerId(),
                     "文件上传失败: " + e.getMessage()
             );
-        } finally {
-            if (channel != null) {
-                channel.disconnect();
+        }
+    }
+
+    @Override
+    public void uploadFileParallel(String localPath, String remotePath, int streams, long rangeSize)
+            throws FileTransferException {
+        checkConnectionState("并行文件上传");
+        Path localFile = Paths.get(localPath);
+
+        try (FileChannel file = FileChannel.open(localFile, StandardOpenOption.READ)) {
+            long size = file.size();
+            int workers = parallelWorkers(streams, size, rangeSize);
+            if (workers <= 1) {
+                uploadFile(localPath, remotePath);
+                return;
             }
+
+            log.info("开始并行上传文件: {} -> {}，{} 路并发", localPath, remotePath, workers);
+            preallocateRemoteFile(file, remotePath, size, -1);
+            writeRangesParallel(file, remotePath, 0, size, workers, rangeSize);
+
+            TransferSupport.verifyRemoteFile(this, localFile, remotePath, size);
+            log.info("并行上传文件成功: {}", remotePath);
+        } catch (Exception e) {
+            throw TransferSupport.wrapUploadException(serverInfo, remotePath, "并行上传", e);
         }
     }
 
     @Override
-    public void uploadDirectory(String localDir, String remoteDir) throws FileTransferException {
-        checkConnectionState("目录上传");
-        Path path = Paths.get(localDir);
-        String archiveName = path.getFileName().toString() + ".tar.gz";
-        Path archivePath = Paths.get(System.getProperty("java.io.tmpdir"), archiveName);
+    public void uploadFileResumable(String localPath, String remotePath, int streams, long rangeSize)
+            throws FileTransferException {
+        checkConnectionState("断点续传");
+        Path localFile = Paths.get(localPath);
+        String partialPath = remotePath + TransferSupport.PARTIAL_SUFFIX;
+
+        try (FileChannel file = FileChannel.open(localFile, StandardOpenOption.READ)) {
+            long size = file.size();
+            if (size == 0) {
+                // 同样先写 .part 再 mv，目标可能是缓存对象的硬链接，原地截断会清空缓存对象
+                executeCommand(String.format(": > %s && mv -f %s %s", ShellUtils.quote(partialPath),
+                        ShellUtils.quote(partialPath), ShellUtils.quote(remotePath)));
+                log.info("断点续传完成（空文件）: {}", remotePath);
+                return;
+            }
+
+            // 协商续传偏移：远程已有部分按块比对摘要，取最后一个连续一致的块结尾
+            long remoteSize = getFileSize(partialPath);
+            long offset = remoteSize > 0 ? TransferSupport.negotiateResumeOffset(this, file, partialPath, Math.min(remoteSize, size)) : 0;
+            if (remoteSize >= 0 && remoteSize != offset) {
+                executeCommand("truncate -s " + offset + " " + ShellUtils.quote(partialPath));
+            }
+            log.info("开始断点续传: {} -> {}，已有 {} 字节，续传偏移 {}", localPath, partialPath, Math.max(remoteSize, 0), offset);
+
+            if (offset < size) {
+                int workers = parallelWorkers(streams, size - offset, rangeSize);
+                if (workers > 1) {
+                    preallocateRemoteFile(file, partialPath, size, offset);
+                    writeRangesParallel(file, partialPath, offset, size, workers, rangeSize);
+                } else {
+                    // JSch 的 RESUME 模式从远程文件当前大小（即续传偏移）开始写
+                    withSftp("断点续传", channel -> {
+                        try (OutputStream output = channel.put(partialPath, null, ChannelSftp.RESUME, 0)) {
+                            TransferSupport.copyRange(file, output, offset, size);
+                        } catch (IOException e) {
+                            throw new SftpException(ChannelSftp.SSH_FX_FAILURE, e.getMessage(), e);
+                        }
+                        return null;
+                    });
+                }
+            }
+
+            TransferSupport.verifyRemoteFile(this, localFile, partialPath, size);
 
+            // 同一文件系统内 mv 即 rename(2)，替换是原子的
+            executeCommand("mv -f " + ShellUtils.quote(partialPath) + " " + ShellUtils.quote(remotePath));
+            log.info("断点续传完成: {}", remotePath);
+        } catch (Exception e) {
+            throw TransferSupport.wrapUploadException(serverInfo, remotePath, "断点续传", e);
+        }
+    }
+
+    @Override
+    public boolean uploadFileDelta(String localPath, String remotePath) throws FileTransferException {
+        checkConnectionState("增量上传");
+        return TransferSupport.uploadFileDelta(this, localPath, remotePath);
+    }
+
+    private int parallelWorkers(int streams, long length, long rangeSize) {
+        // 预留一个通道给常驻 SFTP 通道
+        return TransferSupport.parallelWorkers(streams, length, rangeSize, maxChannels - 1);
+    }
+
+    /**
+     * 在远程写入文件最后一个字节，把文件扩展到最终大小，各分段随后按偏移写入。
+     *
+     * @param currentSize 远程文件当前大小；小于 0 表示先截断再扩展
+     */
+    private void preallocateRemoteFile(FileChannel file, String remotePath, long size, long currentSize)
+            throws IOException, JSchException, SftpException {
+        ByteBuffer last = ByteBuffer.allocate(1);
+        file.read(last, size - 1);
+        withSftp("并行文件上传", channel -> {
+            int mode = currentSize < 0 ? ChannelSftp.OVERWRITE : ChannelSftp.RESUME;
+            long offset = currentSize < 0 ? size - 1 : size - 1 - currentSize;
+            try (OutputStream output = channel.put(remotePath, null, mode, offset)) {
+                output.write(last.array());
+            } catch (IOException e) {
+                throw new SftpException(ChannelSftp.SSH_FX_FAILURE, e.getMessage(), e);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 多个上传线程并发写入 [from, size) 区间内的各分段
+     */
+    private void writeRangesParallel(FileChannel file, String remotePath, long from, long size,
+                                     int workers, long rangeSize) throws ExecutionException, InterruptedException {
+        int rangeCount = (int) ((size - from + rangeSize - 1) / rangeSize);
+        AtomicInteger nextRange = new AtomicInteger();
+        TransferSupport.runWorkers(workers, () -> {
+            uploadRanges(file, remotePath, from, size, rangeSize, rangeCount, nextRange);
+            return null;
+        });
+    }
+
+    /**
+     * 单个上传线程：独占一个 SFTP 通道，循环领取分段并写到对应偏移。
+     * JSch 只能在 RESUME 模式下不截断地打开文件，且会把偏移加上文件当前大小，
+     * 文件已预先扩展到最终大小，因此传入 (分段起点 - 文件大小) 即可定位到分段起点。
+     */
+    private void uploadRanges(FileChannel file, String remotePath, long from, long size, long rangeSize,
+                              int rangeCount, AtomicInteger nextRange) throws Exception {
+        ChannelSftp channel = null;
         try {
-            // 本地先打包
-            log.info("开始打包本地目录: {} -> {}", localDir, archivePath);
-            Process process = new ProcessBuilder()
-                    .directory(path.toFile().getParentFile())
-                    .command("tar", "-czf", archivePath.toString(), path.getFileName().toString())
-                    .inheritIO()
-                    .start();
-            if (process.waitFor() != 0) {
-                throw new IOException("本地目录打包失败，退出码: " + process.exitValue());
+            channel = openChannel("sftp", "并行文件上传");
+            channel.connect(30000);
+
+            int range;
+            while ((range = nextRange.getAndIncrement()) < rangeCount) {
+                long start = from + range * rangeSize;
+                long end = Math.min(start + rangeSize, size);
+                try (OutputStream output = channel.put(remotePath, null, ChannelSftp.RESUME, start - size)) {
+                    TransferSupport.copyRange(file, output, start, end);
+                }
+                log.debug("分段上传完成 [{}]: {}-{}", remotePath, start, end);
             }
+        } finally {
+            releaseChannel(channel);
+        }
+    }
 
-            // 上传压缩包
-            String remoteArchive = remoteDir + "/" + archiveName;
-            uploadFile(archivePath.toString(), remoteArchive);
+    @Override
+    public long getFileSize(String remotePath) throws FileTransferException {
+        try {
+            return withSftp("文件查询", channel -> {
+                try {
+                    return channel.stat(remotePath).getSize();
+                } catch (SftpException e) {
+                    if (e.id == ChannelSftp.SSH_FX_NO_SUCH_FILE) {
+                        return -1L;
+                    }
+                    throw e;
+                }
+            });
+        } catch (JSchException | SftpException e) {
+            log.error("远程文件查询异常: {}", e.getMessage());
+            throw new FileTransferException(
+                    ConnectErrorCode.SFTP_FAILURE,
+                    serverInfo.getServerId(),
+                    remotePath,
+                    e.getMessage()
+            );
+        }
+    }
 
-            // 确保目标目录存在
-            executeCommand("mkdir -p " + remoteDir);
+    @Override
+    public void makeDirectories(String remoteDir) throws FileTransferException {
+        try {
+            withSftp("目录创建", channel -> {
+                StringBuilder current = new StringBuilder(remoteDir.startsWith("/") ? "/" : "");
+                for (String part : remoteDir.split("/")) {
+                    if (part.isEmpty()) {
+                        continue;
+                    }
+                    current.append(part);
+                    try {
+                        channel.stat(current.toString());
+                    } catch (SftpException e) {
+                        if (e.id != ChannelSftp.SSH_FX_NO_SUCH_FILE) {
+                            throw e;
+                        }
+                        channel.mkdir(current.toString());
+                    }
+                    current.append('/');
+                }
+                return null;
+            });
+        } catch (JSchException | SftpException e) {
+            log.error("远程目录创建异常: {}", e.getMessage());
+            throw new FileTransferException(
+                    ConnectErrorCode.DIRECTORY_CREATE_FAILED,
+                    serverInfo.getServerId(),
+                    remoteDir,
+                    e.getMessage()
+            );
+        }
+    }
 
-            // 远程解压
-            String extractCmd = String.format("tar -xzf %s -C %s", remoteArchive, remoteDir);
-            executeCommand(extractCmd);
-            log.info("远程解压完成: {}", remoteDir);
+    @Override
+    public void uploadDirectory(String localDir, String remoteDir) throws FileTransferException {
+        uploadDirectory(localDir, remoteDir, Deflater.DEFAULT_COMPRESSION);
+    }
 
-            // 删除远程压缩包
-            executeCommand("rm -f " + remoteArchive);
+    /**
+     * 以 tar 流的形式上传目录：本地边打包边写入 exec 通道的标准输入，远程 tar 直接解压，
+     * 本地与远程都不落临时压缩包。
+     */
+    @Override
+    public void uploadDirectory(String localDir, String remoteDir, int compressionLevel)
+            throws FileTransferException {
+        checkConnectionState("目录上传");
+        Path path = Paths.get(localDir);
+        boolean compress = compressionLevel != 0;
+        String command = TransferSupport.extractCommand(remoteDir, compressionLevel);
+        ChannelExec channel = null;
 
-            log.info("目录上传成功: {}", remoteDir);
+        try {
+            log.info("开始流式上传目录: {} -> {}（压缩级别: {}）", localDir, remoteDir, compress ? compressionLevel : "不压缩");
+            channel = openChannel("exec", command);
+            channel.setCommand(command);
+            channel.setOutputStream(new ByteArrayOutputStream());
+            ChannelCompletionStream error = new ChannelCompletionStream();
+            channel.setErrStream(error);
+            OutputStream remoteInput = channel.getOutputStream();
+            channel.connect();
 
-        } catch (IOException | InterruptedException e) {
+            // 打包完成后关闭输出流，即向远程发送 EOF
+            TransferSupport.writeDirectoryArchive(remoteInput, path, compressionLevel);
+
+            waitForChannelClosed(error.getClosedSignal(), command, DEFAULT_COMMAND_TIMEOUT_MILLIS);
+            int exitCode = channel.getExitStatus();
+            if (exitCode != 0) {
+                log.error("远程解压失败[代码:{}]: {}", exitCode, error.toString().trim());
+                throw new FileTransferException(
+                        ConnectErrorCode.COMMAND_EXECUTION_FAILED,
+                        serverInfo.getServerId(),
+                        "远程解压失败: " + error.toString().trim()
+                );
+            }
+
+            log.info("目录上传成功: {}", remoteDir);
+        } catch (IOException | JSchException e) {
             log.error("目录打包/上传异常: {}", e.getMessage(), e);
             throw new FileTransferException(
                     ConnectErrorCode.FILE_UPLOAD_FAILED,
@@ -220,30 +526,26 @@ public class SshConnection implements ServerConnection, AutoCloseable {
                     "远程解压失败: " + e.getMessage()
             );
         } finally {
-            try {
-                Files.deleteIfExists(archivePath);
-            } catch (IOException ignored) {
-                log.warn("临时文件删除失败: {}", archivePath);
-            }
+            releaseChannel(channel);
         }
     }
 
-    private void waitForChannelClosed(Channel channel, String command) throws CommandExecutionException {
-        long timeoutMillis = 35000L;
-        long startTime = System.currentTimeMillis();
-
+    /**
+     * 等待通道关闭。
+     * JSch 在收到 exit-status 之后、通道关闭时会关闭错误输出流，
+     * 因此以错误输出流的关闭作为命令完成信号，无需轮询。
+     */
+    private void waitForChannelClosed(CountDownLatch closed, String command, long timeoutMillis)
+            throws CommandExecutionException {
         try {
-            while (!channel.isClosed()) {
-                if (System.currentTimeMillis() - startTime > timeoutMillis) {
-                    log.error("命令执行超时: {}", command);
-                    throw new CommandExecutionException(
-                            ConnectErrorCode.COMMAND_TIMEOUT,
-                            command,
-                            serverInfo.getServerId(),
-                            "操作超时(" + timeoutMillis + "ms)"
-                    );
-                }
-                Thread.sleep(100L);
+            if (!closed.await(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                log.error("命令执行超时: {}", command);
+                throw new CommandExecutionException(
+                        ConnectErrorCode.COMMAND_TIMEOUT,
+                        command,
+                        serverInfo.getServerId(),
+                        "操作超时(" + timeoutMillis + "ms)"
+                );
             }
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
@@ -257,6 +559,97 @@ public class SshConnection implements ServerConnection, AutoCloseable {
         }
     }
 
+    /**
+     * 在当前会话上打开一个通道。
+     * 同一会话上的并发通道数受 maxChannels 限制，超出时等待其他通道释放。
+     */
+    @SuppressWarnings("unchecked")
+    private <T extends Channel> T openChannel(String type, String currentOperation) throws JSchException {
+        try {
+            channelPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CommandExecutionException(
+                    ConnectErrorCode.COMMAND_INTERRUPTED,
+                    currentOperation,
+                    serverInfo.getServerId(),
+                    "等待可用通道时被中断"
+            );
+        }
+
+        try {
+            return (T) session.openChannel(type);
+        } catch (JSchException | RuntimeException e) {
+            channelPermits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * 在常驻的 SFTP 通道上执行操作。
+     * SFTP 通道在首次使用时创建，之后在上传、查询、建目录之间复用；
+     * 使用前检查通道状态，通道失效时关闭，下次使用自动重新打开。
+     * ChannelSftp 不是线程安全的，因此同一连接上的 SFTP 操作串行执行。
+     */
+    private <T> T withSftp(String currentOperation, SftpOperation<T> operation) throws JSchException, SftpException {
+        checkConnectionState(currentOperation);
+        synchronized (sftpLock) {
+            if (sftpChannel != null && (!sftpChannel.isConnected() || sftpChannel.isClosed())) {
+                log.warn("SFTP通道已失效，重新打开: {}", serverInfo.getHost());
+                closeSftpChannel();
+            }
+            if (sftpChannel == null) {
+                ChannelSftp channel = openChannel("sftp", currentOperation);
+                try {
+                    channel.connect(30000);
+                } catch (JSchException e) {
+                    releaseChannel(channel);
+                    throw e;
+                }
+                sftpChannel = channel;
+                log.debug("SFTP通道已打开: {}", serverInfo.getHost());
+            }
+
+            try {
+                return operation.run(sftpChannel);
+            } catch (SftpException e) {
+                if (e.id == ChannelSftp.SSH_FX_CONNECTION_LOST || e.id == ChannelSftp.SSH_FX_NO_CONNECTION) {
+                    closeSftpChannel();
+                }
+                throw e;
+            }
+        }
+    }
+
+    private void closeSftpChannel() {
+        synchronized (sftpLock) {
+            releaseChannel(sftpChannel);
+            sftpChannel = null;
+        }
+    }
+
+    @FunctionalInterface
+    private interface SftpOperation<T> {
+        T run(ChannelSftp channel) throws SftpException;
+    }
+
+    /**
+     * 关闭通道并归还通道配额
+     */
+    private void releaseChannel(Channel channel) {
+        if (channel != null) {
+            channel.disconnect();
+            channelPermits.release();
+        }
+    }
+
+    /**
+     * 当前会话上正在使用的通道数
+     */
+    public int getActiveChannels() {
+        return maxChannels - channelPermits.availablePermits();
+    }
+
     private void checkConnectionState(String currentOperation) throws CommandExecutionException {
         if (isClosed) {
             log.error("连接已关闭，操作被拒绝: {}", currentOperation);
@@ -281,9 +674,11 @@ public class SshConnection implements ServerConnection, AutoCloseable {
         if (!isClosed) {
             log.info("正在关闭SSH连接...");
             isClosed = true;
+            SshKeepaliveScheduler.getInstance().unregister(this);
             if (session != null) {
                 session.disconnect();
             }
+            closeSftpChannel();
             log.info("SSH连接已关闭");
         }
     }
@@ -296,4 +691,21 @@ public class SshConnection implements ServerConnection, AutoCloseable {
     public boolean isConnected() {
         return !isClosed && session != null && session.isConnected();
     }
+
+    /**
+     * 收集通道输出，并在 JSch 关闭该流（即通道关闭）时发出完成信号。
+     */
+    private static class ChannelCompletionStream extends ByteArrayOutputStream {
+
+        private final CountDownLatch closed = new CountDownLatch(1);
+
+        @Override
+        public void close() {
+            closed.countDown();
+        }
+
+        CountDownLatch getClosedSignal() {
+            return closed;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,92 @@
+package com.nexara.server.core.connect.product;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 所有 SSH 会话共用的心跳调度器。
+ * 由一个定时线程统一触发，心跳发送交给虚拟线程，使用协议层的 keepalive 包而不是打开 exec 通道。
+ */
+@Log4j2
+public final class SshKeepaliveScheduler {
+
+    /**
+     * 心跳间隔（毫秒）
+     */
+    public static final long KEEPALIVE_INTERVAL_MILLIS = 30000L;
+
+    private static final SshKeepaliveScheduler INSTANCE = new SshKeepaliveScheduler();
+
+    private final Set<SshConnection> connections = ConcurrentHashMap.newKeySet();
+    private final AtomicLong deadSessions = new AtomicLong();
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "SSH-Keepalive");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+
+    private SshKeepaliveScheduler() {
+        timer.scheduleWithFixedDelay(this::tick,
+                KEEPALIVE_INTERVAL_MILLIS, KEEPALIVE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public static SshKeepaliveScheduler getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 登记需要保活的连接
+     */
+    public void register(SshConnection connection) {
+        connections.add(connection);
+    }
+
+    /**
+     * 取消登记（连接主动关闭时调用）
+     */
+    public void unregister(SshConnection connection) {
+        connections.remove(connection);
+    }
+
+    /**
+     * 当前正在保活的会话数
+     */
+    public int getTrackedSessions() {
+        return connections.size();
+    }
+
+    /**
+     * 累计发现的失效会话数
+     */
+    public long getDeadSessions() {
+        return deadSessions.get();
+    }
+
+    private void tick() {
+        log.trace("发送心跳，当前会话数: {}", connections.size());
+        for (SshConnection connection : connections) {
+            senders.execute(() -> probe(connection));
+        }
+    }
+
+    private void probe(SshConnection connection) {
+        if (connection.sendKeepalive()) {
+            return;
+        }
+
+        if (connections.remove(connection)) {
+            deadSessions.incrementAndGet();
+            log.warn("心跳检测失败，会话已失效: {}", connection.getServerInfo().getHost());
+            connection.disconnect();
+        }
+    }
+}
@@ -0,0 +1,375 @@
+package com.nexara.server.core.connect.product;
+
+import com.nexara.server.core.exception.connect.CommandExecutionException;
+import com.nexara.server.core.exception.connect.FileTransferException;
+import com.nexara.server.polo.enums.ConnectErrorCode;
+import com.nexara.server.polo.model.ServerInfo;
+import com.nexara.server.util.HashUtils;
+import com.nexara.server.util.ShellUtils;
+import lombok.extern.log4j.Log4j2;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipParameters;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * 与底层 SSH 客户端无关的传输逻辑：续传偏移协商、远程校验、增量上传、目录打包。
+ * 只依赖 {@link ServerConnection} 的命令执行与文件上传能力，JSch 与 MINA 两种实现共用。
+ */
+@Log4j2
+final class TransferSupport {
+
+    /**
+     * 远程校验大文件摘要的超时时间（毫秒）
+     */
+    static final long CHECKSUM_TIMEOUT_MILLIS = 10 * 60 * 1000L;
+
+    /**
+     * 断点续传时远程未完成文件的后缀
+     */
+    static final String PARTIAL_SUFFIX = ".part";
+
+    /**
+     * 断点续传比对摘要的块大小
+     */
+    private static final long RESUME_BLOCK_SIZE = 8 * 1024 * 1024L;
+
+    /**
+     * 增量传输：按块输出远程旧文件的 adler32 与 md5 签名
+     */
+    private static final String DELTA_SIGNATURE_SCRIPT = String.join("\n",
+            "import sys, zlib, hashlib",
+            "n = int(sys.argv[2])",
+            "with open(sys.argv[1], 'rb') as f:",
+            "    while True:",
+            "        b = f.read(n)",
+            "        if len(b) < n:",
+            "            break",
+            "        print(zlib.adler32(b), hashlib.md5(b).hexdigest())");
+
+    /**
+     * 增量传输：按补丁指令用旧文件的块和字面数据拼出新文件
+     */
+    private static final String DELTA_PATCH_SCRIPT = String.join("\n",
+            "import sys",
+            "old, lit, ops, out, n = sys.argv[1], sys.argv[2], sys.argv[3], sys.argv[4], int(sys.argv[5])",
+            "with open(old, 'rb') as o, open(lit, 'rb') as l, open(ops) as p, open(out, 'wb') as w:",
+            "    for line in p:",
+            "        op, v = line.split()",
+            "        if op == 'C':",
+            "            o.seek(int(v) * n)",
+            "            w.write(o.read(n))",
+            "        else:",
+            "            w.write(l.read(int(v)))");
+
+    /**
+     * 增量上传的文件大小上限，受 {@link DeltaEncoder} 内存映射的限制
+     */
+    private static final long DELTA_MAX_FILE_SIZE = Integer.MAX_VALUE;
+
+    /**
+     * 需要传输的字面数据超过文件大小的该比例时放弃增量上传
+     */
+    private static final double DELTA_MAX_LITERAL_RATIO = 0.8;
+
+    private TransferSupport() {
+    }
+
+    /**
+     * 增量上传，流程见 {@link ServerConnection#uploadFileDelta(String, String)}。
+     * 增量过程任何一步失败都清理远程中间文件并返回 false，由调用方改用完整上传
+     */
+    static boolean uploadFileDelta(ServerConnection connection, String localPath, String remotePath)
+            throws FileTransferException {
+        Path localFile = Paths.get(localPath);
+        long size;
+        try {
+            size = Files.size(localFile);
+        } catch (IOException e) {
+            throw wrapUploadException(connection.getServerInfo(), remotePath, "增量上传", e);
+        }
+        if (size > DELTA_MAX_FILE_SIZE) {
+            log.info("文件超过增量上传上限({}字节)，改用完整上传: {}", DELTA_MAX_FILE_SIZE, localPath);
+            return false;
+        }
+        if (connection.getFileSize(remotePath) <= 0) {
+            log.info("远程不存在旧文件，无法增量上传: {}", remotePath);
+            return false;
+        }
+
+        // 一条命令取回远程旧文件的全部块签名
+        List<String> signatures;
+        try {
+            String output = connection.executeCommand(String.format("python3 -c %s %s %d",
+                    ShellUtils.quote(DELTA_SIGNATURE_SCRIPT), ShellUtils.quote(remotePath), DeltaEncoder.BLOCK_SIZE),
+                    CHECKSUM_TIMEOUT_MILLIS);
+            signatures = output.isEmpty() ? List.of() : output.lines().toList();
+        } catch (CommandExecutionException e) {
+            log.warn("远程块签名计算失败（可能缺少 python3），无法增量上传: {}", e.getMessage());
+            return false;
+        }
+
+        String literalPath = remotePath + ".delta";
+        String opsPath = remotePath + ".ops";
+        String patchedPath = remotePath + ".patched";
+        Path literalFile = null;
+        Path opsFile = null;
+        boolean staged = false;
+        try {
+            literalFile = Files.createTempFile("nexara-delta", ".bin");
+            opsFile = Files.createTempFile("nexara-delta", ".ops");
+
+            DeltaEncoder.DeltaPlan plan;
+            try (OutputStream literalOutput = Files.newOutputStream(literalFile)) {
+                plan = DeltaEncoder.encode(localFile, signatures, literalOutput);
+            }
+            // 旧文件与新文件差异过大时，单通道传字面数据不如完整上传（可续传、可并行）
+            if (plan.literalBytes() > size * DELTA_MAX_LITERAL_RATIO) {
+                log.info("增量上传可复用的数据过少（复用 {} 字节，需传输 {} 字节），改用完整上传: {}",
+                        plan.copiedBytes(), plan.literalBytes(), remotePath);
+                return false;
+            }
+            Files.writeString(opsFile, plan.ops());
+            log.info("增量上传: {} -> {}，复用 {} 字节，传输 {} 字节",
+                    localPath, remotePath, plan.copiedBytes(), plan.literalBytes());
+
+            staged = true;
+            connection.uploadFile(literalFile.toString(), literalPath);
+            connection.uploadFile(opsFile.toString(), opsPath);
+            connection.executeCommand(String.format("python3 -c %s %s %s %s %s %d",
+                    ShellUtils.quote(DELTA_PATCH_SCRIPT), ShellUtils.quote(remotePath), ShellUtils.quote(literalPath),
+                    ShellUtils.quote(opsPath), ShellUtils.quote(patchedPath), DeltaEncoder.BLOCK_SIZE),
+                    CHECKSUM_TIMEOUT_MILLIS);
+
+            verifyRemoteFile(connection, localFile, patchedPath, size);
+            connection.executeCommand("mv -f " + ShellUtils.quote(patchedPath) + " " + ShellUtils.quote(remotePath));
+            log.info("增量上传完成: {}", remotePath);
+            return true;
+        } catch (Exception e) {
+            log.warn("增量上传失败，改用完整上传: {}，原因: {}", remotePath, e.getMessage());
+            return false;
+        } finally {
+            deleteQuietly(literalFile);
+            deleteQuietly(opsFile);
+            if (staged) {
+                deleteRemoteQuietly(connection, literalPath, opsPath, patchedPath);
+            }
+        }
+    }
+
+    /**
+     * 删除远程中间文件，失败只记录日志
+     */
+    private static void deleteRemoteQuietly(ServerConnection connection, String... remotePaths) {
+        StringBuilder command = new StringBuilder("rm -f");
+        for (String remotePath : remotePaths) {
+            command.append(' ').append(ShellUtils.quote(remotePath));
+        }
+        try {
+            connection.executeCommand(command.toString());
+        } catch (CommandExecutionException e) {
+            log.warn("远程临时文件删除失败: {}", e.getMessage());
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("临时文件删除失败: {}", path);
+        }
+    }
+
+    /**
+     * 逐块比对远程部分文件与本地文件，返回最后一个连续一致块的结尾偏移。
+     * 远程各块摘要通过一条命令一次取回。
+     */
+    static long negotiateResumeOffset(ServerConnection connection, FileChannel file, String partialPath, long length)
+            throws IOException {
+        long blocks = length / RESUME_BLOCK_SIZE;
+        if (blocks == 0) {
+            return 0;
+        }
+
+        String command = String.format(
+                "f=%s; i=0; while [ $i -lt %d ]; do dd if=\"$f\" bs=%d skip=$i count=1 2>/dev/null | sha256sum | cut -d' ' -f1; i=$((i+1)); done",
+                ShellUtils.quote(partialPath), blocks, RESUME_BLOCK_SIZE);
+        String[] remoteHashes = connection.executeCommand(command, CHECKSUM_TIMEOUT_MILLIS).split("\\s+");
+
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        long matched = 0;
+        for (; matched < blocks && matched < remoteHashes.length; matched++) {
+            MessageDigest digest = HashUtils.newSha256();
+            long position = matched * RESUME_BLOCK_SIZE;
+            long end = position + RESUME_BLOCK_SIZE;
+            while (position < end) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), end - position));
+                int read = file.read(buffer, position);
+                if (read < 0) {
+                    break;
+                }
+                digest.update(buffer.array(), 0, read);
+                position += read;
+            }
+            if (!HexFormat.of().formatHex(digest.digest()).equalsIgnoreCase(remoteHashes[(int) matched])) {
+                break;
+            }
+        }
+        return matched * RESUME_BLOCK_SIZE;
+    }
+
+    /**
+     * 并行上传实际使用的并发数，不超过分段数与 maxWorkers
+     */
+    static int parallelWorkers(int streams, long length, long rangeSize, int maxWorkers) {
+        long rangeCount = (length + rangeSize - 1) / rangeSize;
+        return (int) Math.min(Math.min(streams, rangeCount), maxWorkers);
+    }
+
+    /**
+     * 在虚拟线程上启动 workers 个上传任务并等待全部完成
+     */
+    static void runWorkers(int workers, Callable<Void> worker) throws ExecutionException, InterruptedException {
+        List<Future<Void>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < workers; i++) {
+                futures.add(executor.submit(worker));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        }
+    }
+
+    /**
+     * 把本地文件 [start, end) 区间写入输出流
+     */
+    static void copyRange(FileChannel file, OutputStream output, long start, long end) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(32 * 1024);
+        long position = start;
+        while (position < end) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), end - position));
+            int read = file.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("本地文件读取提前结束: " + position);
+            }
+            output.write(buffer.array(), 0, read);
+            position += read;
+        }
+    }
+
+    static FileTransferException wrapUploadException(ServerInfo serverInfo, String remotePath,
+                                                     String operation, Exception e) {
+        if (e instanceof InterruptedException) {
+            Thread.currentThread().interrupt();
+        }
+        Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+        log.error("{}异常: {}", operation, cause.getMessage());
+        return new FileTransferException(
+                ConnectErrorCode.FILE_UPLOAD_FAILED,
+                serverInfo.getServerId(),
+                remotePath,
+                operation + "失败: " + cause.getMessage()
+        );
+    }
+
+    /**
+     * 校验远程文件的大小与 SHA-256 是否与本地一致
+     */
+    static void verifyRemoteFile(ServerConnection connection, Path localFile, String remotePath, long size)
+            throws IOException {
+        long remoteSize = connection.getFileSize(remotePath);
+        if (remoteSize != size) {
+            throw new IOException("远程文件大小不一致: 本地=" + size + ", 远程=" + remoteSize);
+        }
+
+        String localHash = HashUtils.sha256Hex(localFile);
+        String output = connection.executeCommand("sha256sum " + ShellUtils.quote(remotePath), CHECKSUM_TIMEOUT_MILLIS);
+        int space = output.indexOf(' ');
+        String remoteHash = space > 0 ? output.substring(0, space) : output;
+        if (!localHash.equalsIgnoreCase(remoteHash)) {
+            throw new IOException("远程文件校验失败: 本地Hash=" + localHash + ", 远程Hash=" + remoteHash);
+        }
+    }
+
+    /**
+     * 远程解压目录的命令，从标准输入读取 tar 流
+     */
+    static String extractCommand(String remoteDir, int compressionLevel) {
+        String dir = ShellUtils.quote(remoteDir);
+        return String.format("mkdir -p %s && tar -x%sf - -C %s", dir, compressionLevel != 0 ? "z" : "", dir);
+    }
+
+    /**
+     * 把目录打包成 tar 流写入 output（compressionLevel 非 0 时 gzip 压缩），写完后关闭 output 即向远程发送 EOF
+     */
+    static void writeDirectoryArchive(OutputStream output, Path root, int compressionLevel) throws IOException {
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(
+                openArchiveStream(new BufferedOutputStream(output, 64 * 1024), compressionLevel))) {
+            tar.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+            tar.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
+            writeTarEntries(tar, root);
+            tar.finish();
+        }
+    }
+
+    private static OutputStream openArchiveStream(OutputStream output, int compressionLevel) throws IOException {
+        if (compressionLevel == 0) {
+            return output;
+        }
+        GzipParameters parameters = new GzipParameters();
+        parameters.setCompressionLevel(compressionLevel);
+        return new GzipCompressorOutputStream(output, parameters);
+    }
+
+    /**
+     * 把目录写入 tar 流，条目以目录名为前缀，与 tar -czf 打包目录的结构一致
+     */
+    private static void writeTarEntries(TarArchiveOutputStream tar, Path root) throws IOException {
+        String prefix = root.getFileName().toString();
+        List<Path> paths;
+        try (Stream<Path> walk = Files.walk(root)) {
+            paths = walk.sorted().toList();
+        }
+
+        for (Path current : paths) {
+            String relative = root.relativize(current).toString().replace('\\', '/');
+            String name = relative.isEmpty() ? prefix : prefix + "/" + relative;
+            if (Files.isDirectory(current)) {
+                tar.putArchiveEntry(new TarArchiveEntry(current, name + "/"));
+                tar.closeArchiveEntry();
+            } else if (Files.isRegularFile(current)) {
+                TarArchiveEntry entry = new TarArchiveEntry(current, name);
+                // 保留可执行权限，部署脚本解压后可直接运行
+                entry.setMode(Files.isExecutable(current) ? 0100755 : 0100644);
+                tar.putArchiveEntry(entry);
+                Files.copy(current, tar);
+                tar.closeArchiveEntry();
+            }
+        }
+    }
+}
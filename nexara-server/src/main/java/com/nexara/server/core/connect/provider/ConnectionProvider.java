@@ -3,8 +3,11 @@ package com.nexara.server.core.connect.provider;
 import com.nexara.server.core.connect.product.ServerConnection;
 import com.nexara.server.core.exception.connect.ConnectionException;
 import com.nexara.server.polo.enums.ProtocolType;
+import com.nexara.server.polo.model.PoolMetrics;
 import com.nexara.server.polo.model.ServerInfo;
 
+import java.util.List;
+
 public interface ConnectionProvider {
     ProtocolType getSupportedProtocol();
 
@@ -24,4 +27,11 @@ public interface ConnectionProvider {
     default boolean isPooled() {
         return true;
     }
+
+    /**
+     * 各连接池的运行指标（非池化协议返回空列表）
+     */
+    default List<PoolMetrics> getPoolMetrics() {
+        return List.of();
+    }
 }
@@ -0,0 +1,74 @@
+package com.nexara.server.core.connect.provider;
+
+import com.nexara.server.core.connect.product.LocalConnection;
+import com.nexara.server.core.connect.product.ServerConnection;
+import com.nexara.server.core.exception.connect.ConnectionException;
+import com.nexara.server.polo.enums.ConnectErrorCode;
+import com.nexara.server.polo.enums.ProtocolType;
+import com.nexara.server.polo.model.ServerInfo;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.regex.Pattern;
+
+/**
+ * 本机协议的连接提供者。
+ * 本机连接不持有任何网络资源，创建开销可以忽略，因此不做池化，每次借用新建、归还即关闭。
+ * 本机连接可以在 nexara 所在主机上执行任意命令，默认不启用，需配置 nexara.connection.local.enabled=true；
+ * 启用后也只接受 host 为回环地址的服务器。
+ */
+@Log4j2
+@Component
+@ConditionalOnProperty(name = "nexara.connection.local.enabled", havingValue = "true")
+public class LocalConnectionProvider implements ConnectionProvider {
+
+    // IPv4 或 IPv6 字面量，解析时不会查询 DNS
+    private static final Pattern IP_LITERAL = Pattern.compile("[0-9.]+|.*:.*");
+
+    @Override
+    public ProtocolType getSupportedProtocol() {
+        return ProtocolType.LOCAL;
+    }
+
+    @Override
+    public ServerConnection getConnection(ServerInfo info) throws ConnectionException {
+        if (!isLoopback(info.getHost())) {
+            throw new ConnectionException(
+                    ConnectErrorCode.INVALID_CONFIG,
+                    info.getServerId(),
+                    info.getHost(),
+                    "本机连接只允许回环地址");
+        }
+        return new LocalConnection(info);
+    }
+
+    @Override
+    public void returnConnection(ServerConnection connection) {
+        connection.disconnect();
+    }
+
+    @Override
+    public boolean isPooled() {
+        return false;
+    }
+
+    private static boolean isLoopback(String host) {
+        if (host == null) {
+            return false;
+        }
+        if ("localhost".equalsIgnoreCase(host)) {
+            return true;
+        }
+        if (!IP_LITERAL.matcher(host).matches()) {
+            return false;
+        }
+        try {
+            return InetAddress.getByName(host).isLoopbackAddress();
+        } catch (UnknownHostException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.nexara.server.core.connect.provider;
+
+import com.nexara.server.config.ConnectionPoolProperties;
+import com.nexara.server.core.connect.product.MinaSshConnection;
+import com.nexara.server.core.connect.product.ServerConnection;
+import com.nexara.server.core.connect.product.SshConnection;
+import com.nexara.server.core.connect.product.SshKeepaliveScheduler;
+import com.nexara.server.core.exception.connect.ConnectionException;
+import com.nexara.server.polo.enums.ProtocolType;
+import com.nexara.server.polo.model.PoolMetrics;
+import com.nexara.server.polo.model.ServerInfo;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.apache.sshd.client.SshClient;
+import org.apache.sshd.client.keyverifier.AcceptAllServerKeyVerifier;
+import org.apache.sshd.core.CoreModuleProperties;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 基于 Apache MINA SSHD 的 SSH 连接提供者，配置 nexara.connection.ssh-client=mina 时替代 {@link SshConnectionProvider}。
+ * 所有会话共用一个 {@link SshClient}，读写由少量 IO 线程完成，不再为每个会话、每个通道占用线程。
+ * 会话本身可承载多个并发通道且通道满时排队而不阻塞，因此不再借还独占会话：
+ * 同一服务器的调用方共享会话，只有当全部会话的通道都占满时才新建会话（不超过 maxTotal），
+ * 无人使用且空闲超过 idleTimeout 的会话由后台任务关闭。
+ */
+@Log4j2
+@Component
+@ConditionalOnProperty(name = "nexara.connection.ssh-client", havingValue = "mina")
+public class MinaSshConnectionProvider implements ConnectionProvider {
+
+    private final ConnectionPoolProperties poolProperties;
+    private final SshClient client;
+
+    // key = host:port@username，value = 该服务器上已建立的会话
+    private final Map<String, SessionGroup> groupMap = new ConcurrentHashMap<>();
+
+    public MinaSshConnectionProvider(ConnectionPoolProperties poolProperties,
+                                     @Value("${nexara.connection.io-threads:4}") int ioThreads) {
+        this.poolProperties = poolProperties;
+        this.client = SshClient.setUpDefaultClient();
+        // 与 JSch 实现的 StrictHostKeyChecking=no 一致
+        client.setServerKeyVerifier(AcceptAllServerKeyVerifier.INSTANCE);
+        client.setNioWorkers(ioThreads);
+        CoreModuleProperties.HEARTBEAT_INTERVAL.set(client,
+                Duration.ofMillis(SshKeepaliveScheduler.KEEPALIVE_INTERVAL_MILLIS));
+        client.start();
+        log.info("MINA SSH 客户端已启动，IO 线程数: {}", ioThreads);
+    }
+
+    @Override
+    public ProtocolType getSupportedProtocol() {
+        return ProtocolType.SSH;
+    }
+
+    /**
+     * 返回该服务器上负载最低的会话；全部会话的通道都已占满且未达到会话上限时新建一个。
+     * 在锁内登记"正在建立会话"后释放锁再建连（TCP、密钥交换、认证），不阻塞同组的归还、统计和空闲回收；
+     * 建连期间同一服务器需要新会话的调用方等待其完成后重新选择，避免同时建立多余的会话。
+     */
+    @Override
+    public ServerConnection getConnection(ServerInfo info) throws ConnectionException {
+        String key = buildKey(info);
+        SessionGroup group = groupMap.computeIfAbsent(key,
+                k -> new SessionGroup(poolProperties.resolve(info.getServerId())));
+
+        CompletableFuture<Void> reservation = null;
+        while (reservation == null) {
+            CompletableFuture<Void> connecting;
+            synchronized (group) {
+                group.removeDisconnected(key);
+                SharedSession candidate = group.sessions.stream()
+                        .min(Comparator.comparingInt(SharedSession::load))
+                        .orElse(null);
+                if (candidate != null
+                        && (candidate.load() < candidate.connection.getMaxChannels() - 1
+                        || group.sessions.size() >= group.policy.maxTotal())) {
+                    candidate.borrowers++;
+                    log.debug("复用 SSH 会话 [{}]，当前共享数: {}", key, candidate.borrowers);
+                    return candidate.connection;
+                }
+
+                connecting = group.connecting;
+                if (connecting == null) {
+                    reservation = new CompletableFuture<>();
+                    group.connecting = reservation;
+                    log.debug("创建新的 SSH 会话: {}，已有 {} 个", key, group.sessions.size());
+                }
+            }
+            if (connecting != null) {
+                // 不在锁内等待，建连失败时同样重新选择
+                connecting.exceptionally(e -> null).join();
+            }
+        }
+
+        MinaSshConnection connection = null;
+        try {
+            connection = new MinaSshConnection(client, info, SshConnection.DEFAULT_MAX_CHANNELS);
+            return connection;
+        } finally {
+            synchronized (group) {
+                group.connecting = null;
+                if (connection != null) {
+                    group.sessions.add(new SharedSession(connection));
+                    group.createdCount++;
+                }
+            }
+            reservation.complete(null);
+        }
+    }
+
+    /**
+     * 会话在调用方之间共享，归还只减少使用方计数；已断开且无人使用的会话直接关闭
+     */
+    @Override
+    public void returnConnection(ServerConnection connection) {
+        String key = buildKey(connection.getServerInfo());
+        SessionGroup group = groupMap.get(key);
+        if (group == null) {
+            log.warn("会话组不存在，关闭连接: {}", key);
+            connection.disconnect();
+            return;
+        }
+
+        synchronized (group) {
+            for (SharedSession shared : group.sessions) {
+                if (shared.connection == connection) {
+                    shared.borrowers--;
+                    shared.lastReturnTime = System.currentTimeMillis();
+                    break;
+                }
+            }
+            group.removeDisconnected(key);
+        }
+    }
+
+    @Override
+    public boolean isPooled() {
+        return false;
+    }
+
+    @Override
+    public List<PoolMetrics> getPoolMetrics() {
+        List<PoolMetrics> metrics = new ArrayList<>();
+        groupMap.forEach((key, group) -> {
+            synchronized (group) {
+                int active = 0;
+                int waiters = 0;
+                int borrowers = 0;
+                for (SharedSession shared : group.sessions) {
+                    active += shared.borrowers > 0 ? 1 : 0;
+                    waiters += shared.connection.getPendingChannels();
+                    borrowers += shared.borrowers;
+                }
+                metrics.add(PoolMetrics.builder()
+                        .poolKey(key)
+                        .active(active)
+                        .idle(group.sessions.size() - active)
+                        .waiters(waiters)
+                        .borrowers(borrowers)
+                        .createdCount(group.createdCount)
+                        .destroyedCount(group.destroyedCount)
+                        .build());
+            }
+        });
+        return metrics;
+    }
+
+    /**
+     * 关闭无人使用且空闲超过 idleTimeout 的会话，每台服务器保留 minIdle 个
+     */
+    @Scheduled(fixedDelay = 30_000)
+    public void evictIdleSessions() {
+        long now = System.currentTimeMillis();
+        groupMap.forEach((key, group) -> {
+            synchronized (group) {
+                group.removeDisconnected(key);
+                Iterator<SharedSession> iterator = group.sessions.iterator();
+                while (iterator.hasNext() && group.sessions.size() > group.policy.minIdle()) {
+                    SharedSession shared = iterator.next();
+                    if (shared.borrowers <= 0 && now - shared.lastReturnTime > group.policy.idleTimeout().toMillis()) {
+                        iterator.remove();
+                        group.destroyedCount++;
+                        log.debug("关闭空闲 SSH 会话: {}", key);
+                        shared.connection.disconnect();
+                    }
+                }
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        groupMap.values().forEach(group -> {
+            synchronized (group) {
+                group.sessions.forEach(shared -> shared.connection.disconnect());
+                group.sessions.clear();
+            }
+        });
+        client.stop();
+        log.info("MINA SSH 客户端已关闭");
+    }
+
+    /**
+     * 构建会话组的唯一 key。
+     * 格式：host:port@username
+     */
+    private String buildKey(ServerInfo info) {
+        return info.getHost() + ":" + info.getPort() + "@" + info.getUsername();
+    }
+
+    /**
+     * 同一服务器上的全部会话，以及该服务器生效的连接池策略
+     */
+    private static class SessionGroup {
+        private final ConnectionPoolProperties.PoolPolicy policy;
+        private final List<SharedSession> sessions = new ArrayList<>();
+        // 正在建立的会话，建立完成（无论成功与否）时完成
+        private CompletableFuture<Void> connecting;
+        private long createdCount;
+        private long destroyedCount;
+
+        private SessionGroup(ConnectionPoolProperties.PoolPolicy policy) {
+            this.policy = policy;
+        }
+
+        /**
+         * 移除已断开的会话；仍有使用方的会话由其自行处理失败
+         */
+        private void removeDisconnected(String key) {
+            Iterator<SharedSession> iterator = sessions.iterator();
+            while (iterator.hasNext()) {
+                SharedSession shared = iterator.next();
+                if (!shared.connection.isConnected()) {
+                    iterator.remove();
+                    destroyedCount++;
+                    log.warn("SSH 会话已断开，移出会话组: {}", key);
+                    shared.connection.disconnect();
+                }
+            }
+        }
+    }
+
+    /**
+     * 会话及其当前共享的使用方数量
+     */
+    private static class SharedSession {
+        private final MinaSshConnection connection;
+        private int borrowers = 1;
+        private long lastReturnTime = System.currentTimeMillis();
+
+        private SharedSession(MinaSshConnection connection) {
+            this.connection = connection;
+        }
+
+        /**
+         * 正在使用与排队等待的通道数
+         */
+        private int load() {
+            return connection.getActiveChannels() + connection.getPendingChannels();
+        }
+    }
+}
@@ -1,33 +1,64 @@
 package com.nexara.server.core.connect.provider;
 
+import com.nexara.server.config.ConnectionPoolProperties;
 import com.nexara.server.core.connect.product.ServerConnection;
 import com.nexara.server.core.connect.product.SshConnection;
 import com.nexara.server.core.exception.connect.ConnectionException;
 import com.nexara.server.polo.enums.ConnectErrorCode;
 import com.nexara.server.polo.enums.ProtocolType;
+import com.nexara.server.polo.model.PoolMetrics;
 import com.nexara.server.polo.model.ServerInfo;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.apache.commons.pool2.BasePooledObjectFactory;
 import org.apache.commons.pool2.PooledObject;
 import org.apache.commons.pool2.PooledObjectFactory;
 import org.apache.commons.pool2.impl.DefaultPooledObject;
 import org.apache.commons.pool2.impl.GenericObjectPool;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * SSH 协议的连接提供者。
  * 使用 Commons Pool2 来做连接池，避免频繁创建 / 销毁连接带来的开销。
+ * 同一个 SSH 会话可以同时承载多个通道，因此借出的会话会在多个调用方之间共享，
+ * 只有当已借出的会话都没有空闲通道时，才会从池中再借一个新会话。
+ * 连接池策略来自 {@link ConnectionPoolProperties}，连接上限随实际需求自动伸缩，
+ * 空闲会话的校验与回收由后台回收线程完成，不占用借出路径。
+ * 默认的 SSH 实现（nexara.connection.ssh-client=jsch），可切换为 {@link MinaSshConnectionProvider}。
  */
 @Log4j2
 @Component
+@ConditionalOnProperty(name = "nexara.connection.ssh-client", havingValue = "jsch", matchIfMissing = true)
+@RequiredArgsConstructor
 public class SshConnectionProvider implements ConnectionProvider {
 
+    /**
+     * 连接池耗尽时每轮等待的时长，每轮结束重新检查可共享的会话
+     */
+    private static final Duration BORROW_POLL_INTERVAL = Duration.ofMillis(100);
+
+    private final ConnectionPoolProperties poolProperties;
+
     // key = host:port@username，value = 对应的连接池
     private final Map<String, GenericObjectPool<ServerConnection>> poolMap = new ConcurrentHashMap<>();
 
+    // key = host:port@username，value = 连接池策略与需求统计
+    private final Map<String, PoolState> poolStateMap = new ConcurrentHashMap<>();
+
+    // key = host:port@username，value = 已从池中借出、可被多个调用方共享的会话
+    private final Map<String, List<SharedSession>> sharedSessionMap = new ConcurrentHashMap<>();
+
     @Override
     public ProtocolType getSupportedProtocol() {
         return ProtocolType.SSH;
@@ -35,41 +66,110 @@ public class SshConnectionProvider implements ConnectionProvider {
 
     /**
      * 获取一个可用的 SSH 连接。
-     * 如果不存在池子，就为该服务器信息新建一个池子。
+     * 优先复用已借出且仍有空闲通道的会话；如果不存在池子，就为该服务器信息新建一个池子。
      */
     @Override
     public ServerConnection getConnection(ServerInfo info) throws ConnectionException {
         String key = buildKey(info);
 
         // 如果不存在连接池，则创建一个
-        poolMap.computeIfAbsent(key, k -> {
+        GenericObjectPool<ServerConnection> pool = poolMap.computeIfAbsent(key, k -> {
             log.info("创建新的 SSH 连接池: {}", key);
-            return createPool(info);
+            return createPool(key, info);
         });
 
+        List<SharedSession> sharedSessions = sharedSessionMap.computeIfAbsent(key, k -> new ArrayList<>());
+        PoolState state = poolStateMap.get(key);
+        long deadline = System.currentTimeMillis() + pool.getMaxWaitDuration().toMillis();
+
         try {
-            // 从池子中借一个连接
-            ServerConnection connection = poolMap.get(key).borrowObject();
+            ServerConnection connection = null;
+            while (connection == null) {
+                ServerConnection shared = tryShare(key, sharedSessions);
+                if (shared != null) {
+                    return shared;
+                }
+
+                // 没有可复用的会话，从池子中借一个连接；池已用满时先尝试扩容，避免等待下一轮调整
+                if (pool.getNumActive() >= pool.getMaxTotal()) {
+                    resizePool(key, pool, state, true);
+                }
+                // 分段等待：等待期间其他线程借出的会话可能已有空闲通道，每轮都重新尝试共享
+                try {
+                    connection = pool.borrowObject(BORROW_POLL_INTERVAL);
+                } catch (NoSuchElementException e) {
+                    if (System.currentTimeMillis() >= deadline) {
+                        throw e;
+                    }
+                }
+            }
+
+            if (!connection.isConnected()) {
+                // 两次后台校验之间断开的会话，直接作废后重新借
+                pool.invalidateObject(connection);
+                connection = pool.borrowObject();
+            }
+            state.peakActive.accumulateAndGet(pool.getNumActive(), Math::max);
+            synchronized (sharedSessions) {
+                sharedSessions.add(new SharedSession(connection));
+            }
             log.debug("从池中借出连接: {}", key);
             return connection;
         } catch (Exception e) {
             String connectionInfo = String.format("%s@%s:%d", info.getUsername(), info.getHost(), info.getPort());
             log.error("借用 SSH 连接失败 [{}]: {}", connectionInfo, e.getMessage(), e);
+            // 等待超时说明池已耗尽，与主机本身是否可达无关
             throw new ConnectionException(
-                    ConnectErrorCode.POOL_NOT_REACHABLE,
+                    e instanceof NoSuchElementException ? ConnectErrorCode.RESOURCE_LIMIT : ConnectErrorCode.POOL_NOT_REACHABLE,
                     info.getServerId(),
                     connectionInfo,
                     e.getMessage());
         }
     }
 
+    /**
+     * 复用已借出且仍有空闲通道的会话，没有则返回 null。
+     * 常驻 SFTP 通道长期占用一个通道配额，因此每个会话最多共享给 maxChannels - 1 个使用方
+     */
+    private ServerConnection tryShare(String key, List<SharedSession> sharedSessions) {
+        synchronized (sharedSessions) {
+            for (SharedSession shared : sharedSessions) {
+                if (shared.connection.isConnected() && shared.borrowers < shared.connection.getMaxChannels() - 1) {
+                    shared.borrowers++;
+                    log.debug("复用已借出的 SSH 会话 [{}]，当前共享数: {}", key, shared.borrowers);
+                    return shared.connection;
+                }
+            }
+        }
+        return null;
+    }
+
     /**
      * 归还一个连接到池子中。
-     * 如果池子已经存在，就放回去；否则丢弃。
+     * 共享会话只有在最后一个使用方归还后才真正放回池子；如果池子不存在，就丢弃。
      */
     @Override
     public void returnConnection(ServerConnection connection) {
         String key = buildKey(connection.getServerInfo());
+        List<SharedSession> sharedSessions = sharedSessionMap.get(key);
+        if (sharedSessions != null) {
+            synchronized (sharedSessions) {
+                Iterator<SharedSession> iterator = sharedSessions.iterator();
+                while (iterator.hasNext()) {
+                    SharedSession shared = iterator.next();
+                    if (shared.connection != connection) {
+                        continue;
+                    }
+                    if (--shared.borrowers > 0) {
+                        log.debug("共享 SSH 会话仍在使用 [{}]，剩余共享数: {}", key, shared.borrowers);
+                        return;
+                    }
+                    iterator.remove();
+                    break;
+                }
+            }
+        }
+
         GenericObjectPool<ServerConnection> pool = poolMap.get(key);
         if (pool != null) {
             log.debug("归还连接到池: {}", key);
@@ -80,11 +180,74 @@ public class SshConnectionProvider implements ConnectionProvider {
         }
     }
 
+    @Override
+    public List<PoolMetrics> getPoolMetrics() {
+        List<PoolMetrics> metrics = new ArrayList<>();
+        poolMap.forEach((key, pool) -> {
+            int borrowers = 0;
+            List<SharedSession> sharedSessions = sharedSessionMap.get(key);
+            if (sharedSessions != null) {
+                synchronized (sharedSessions) {
+                    for (SharedSession shared : sharedSessions) {
+                        borrowers += shared.borrowers;
+                    }
+                }
+            }
+            metrics.add(PoolMetrics.builder()
+                    .poolKey(key)
+                    .active(pool.getNumActive())
+                    .idle(pool.getNumIdle())
+                    .waiters(pool.getNumWaiters())
+                    .borrowers(borrowers)
+                    .meanBorrowWaitMillis(pool.getMeanBorrowWaitDuration().toMillis())
+                    .maxBorrowWaitMillis(pool.getMaxBorrowWaitDuration().toMillis())
+                    .createdCount(pool.getCreatedCount())
+                    .destroyedCount(pool.getDestroyedCount())
+                    .build());
+        });
+        return metrics;
+    }
+
+    /**
+     * 按最近一个周期的需求调整各连接池的上限：
+     * 有线程等待或峰值用满时翻倍扩容（不超过 maxTotal），峰值不足一半时逐个收缩（不低于 initialTotal）。
+     */
+    @Scheduled(fixedDelay = 30_000)
+    public void adjustPoolSizes() {
+        poolMap.forEach((key, pool) -> {
+            PoolState state = poolStateMap.get(key);
+            if (state != null) {
+                resizePool(key, pool, state, false);
+            }
+        });
+    }
+
+    private void resizePool(String key, GenericObjectPool<ServerConnection> pool, PoolState state, boolean exhausted) {
+        synchronized (state) {
+            int current = pool.getMaxTotal();
+            int peak = exhausted ? current : state.peakActive.getAndSet(pool.getNumActive());
+            ConnectionPoolProperties.PoolPolicy policy = state.policy;
+
+            int target = current;
+            if ((pool.getNumWaiters() > 0 || peak >= current) && current < policy.maxTotal()) {
+                target = Math.min(policy.maxTotal(), current * 2);
+            } else if (!exhausted && peak < current / 2 && current > policy.initialTotal()) {
+                target = Math.max(policy.initialTotal(), current - 1);
+            }
+
+            if (target != current) {
+                pool.setMaxTotal(target);
+                pool.setMaxIdle(Math.min(policy.maxIdle(), target));
+                log.info("调整 SSH 连接池上限 [{}]: {} -> {}，峰值使用 {}", key, current, target, peak);
+            }
+        }
+    }
+
     /**
      * 创建一个 SSH 连接池。
      * 内部定义了连接的创建 / 验证 / 销毁逻辑。
      */
-    private GenericObjectPool<ServerConnection> createPool(ServerInfo info) {
+    private GenericObjectPool<ServerConnection> createPool(String key, ServerInfo info) {
         PooledObjectFactory<ServerConnection> factory = new BasePooledObjectFactory<>() {
             // 创建新连接
             @Override
@@ -116,13 +279,23 @@ public class SshConnectionProvider implements ConnectionProvider {
         };
 
         // 初始化连接池配置
+        ConnectionPoolProperties.PoolPolicy policy = poolProperties.resolve(info.getServerId());
+        int initialTotal = Math.min(policy.initialTotal(), policy.maxTotal());
         GenericObjectPool<ServerConnection> pool = new GenericObjectPool<>(factory);
-        pool.setMaxTotal(5);  // 最大连接数
-        pool.setMinIdle(1);   // 最小空闲连接数
-        pool.setMaxIdle(3);   // 最大空闲连接数
-        pool.setBlockWhenExhausted(true); // 连接不足时是否阻塞等待
-        log.info("初始化 SSH 连接池 [{}]: maxTotal={}, minIdle={}, maxIdle={}",
-                buildKey(info), pool.getMaxTotal(), pool.getMinIdle(), pool.getMaxIdle());
+        pool.setMaxTotal(initialTotal);                              // 当前连接上限，随需求伸缩
+        pool.setMinIdle(policy.minIdle());                           // 最小空闲连接数
+        pool.setMaxIdle(Math.min(policy.maxIdle(), initialTotal));   // 最大空闲连接数
+        pool.setBlockWhenExhausted(true);                            // 连接不足时是否阻塞等待
+        pool.setMaxWait(policy.maxWait());                           // 阻塞等待的上限，避免连接泄漏时请求永久挂起
+        // 后台回收：校验全部空闲会话，空闲超时的会话在保留 minIdle 个的前提下回收
+        pool.setTestOnBorrow(false);
+        pool.setTestWhileIdle(true);
+        pool.setNumTestsPerEvictionRun(-1);
+        pool.setSoftMinEvictableIdleDuration(policy.idleTimeout());
+        pool.setDurationBetweenEvictionRuns(poolProperties.getEvictionInterval());
+        poolStateMap.put(key, new PoolState(policy));
+        log.info("初始化 SSH 连接池 [{}]: maxTotal={}（上限 {}），minIdle={}，maxIdle={}，idleTimeout={}",
+                key, pool.getMaxTotal(), policy.maxTotal(), pool.getMinIdle(), pool.getMaxIdle(), policy.idleTimeout());
         return pool;
     }
 
@@ -133,4 +306,28 @@ public class SshConnectionProvider implements ConnectionProvider {
     private String buildKey(ServerInfo info) {
         return info.getHost() + ":" + info.getPort() + "@" + info.getUsername();
     }
+
+    /**
+     * 连接池的生效策略，以及上次调整以来的峰值借出数
+     */
+    private static class PoolState {
+        private final ConnectionPoolProperties.PoolPolicy policy;
+        private final AtomicInteger peakActive = new AtomicInteger();
+
+        private PoolState(ConnectionPoolProperties.PoolPolicy policy) {
+            this.policy = policy;
+        }
+    }
+
+    /**
+     * 已借出的会话及其当前共享的使用方数量
+     */
+    private static class SharedSession {
+        private final SshConnection connection;
+        private int borrowers = 1;
+
+        private SharedSession(ServerConnection connection) {
+            this.connection = (SshConnection) connection;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,191 @@
+package com.nexara.server.core.manager;
+
+import com.nexara.server.config.TransferProperties;
+import com.nexara.server.core.connect.product.ServerConnection;
+import com.nexara.server.core.exception.connect.CommandExecutionException;
+import com.nexara.server.polo.model.RemoteArtifact;
+import com.nexara.server.util.RedisUtils;
+import com.nexara.server.util.ShellUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 远程内容寻址缓存。
+ * 每台服务器在缓存目录下以 SHA-256 为文件名保存上传过的文件，本地用 Redis 记录各服务器已有的对象。
+ * 相同内容再次上传时直接在远程硬链接（跨文件系统时复制）到目标路径，不再经过网络。
+ * 缓存总大小超过上限时按最近使用时间淘汰。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ArtifactCacheManager {
+
+    private static final String REDIS_KEY_PREFIX = "cas:";
+
+    private final RedisUtils redisUtils;
+    private final TransferProperties transferProperties;
+
+    public boolean isEnabled() {
+        return transferProperties.getCas().isEnabled();
+    }
+
+    /**
+     * 缓存命中时在远程把缓存对象链接到目标路径
+     *
+     * @return false 表示未命中，需要正常上传
+     */
+    public boolean linkFromCache(ServerConnection connection, String sha256, String remotePath) {
+        if (!transferProperties.getCas().isEnabled()) {
+            return false;
+        }
+
+        String serverId = connection.getServerInfo().getServerId();
+        RemoteArtifact artifact = (RemoteArtifact) redisUtils.hGet(getIndexKey(serverId), sha256);
+        if (artifact == null) {
+            return false;
+        }
+
+        String objectPath = ShellUtils.quote(getObjectPath(sha256));
+        String target = ShellUtils.quote(remotePath);
+        // 目标可能是其他缓存对象的硬链接，复制时先写临时文件再替换，避免改写缓存对象
+        String command = String.format(
+                "[ \"$(stat -c %%s %s 2>/dev/null)\" = \"%d\" ] && mkdir -p \"$(dirname %s)\" && "
+                        + "{ ln -f %s %s 2>/dev/null || { cp -f %s %s.tmp && mv -f %s.tmp %s; }; }",
+                objectPath, artifact.getSize(), target,
+                objectPath, target, objectPath, target, target, target);
+        try {
+            connection.executeCommand(command);
+        } catch (CommandExecutionException e) {
+            log.warn("服务器 [{}] 的缓存对象 {} 已失效，重新上传: {}", serverId, sha256, e.getMessage());
+            redisUtils.hDelete(getIndexKey(serverId), sha256);
+            return false;
+        }
+
+        artifact.setLastAccessTime(System.currentTimeMillis());
+        redisUtils.hSet(getIndexKey(serverId), sha256, artifact);
+        log.info("命中远程缓存 [{}]: {} -> {}", serverId, sha256, remotePath);
+        return true;
+    }
+
+    /**
+     * 把刚上传完成的远程文件登记到缓存，失败不影响上传结果
+     */
+    public void store(ServerConnection connection, String sha256, String remotePath, long size) {
+        if (!transferProperties.getCas().isEnabled()) {
+            return;
+        }
+
+        String serverId = connection.getServerInfo().getServerId();
+        String objectPath = ShellUtils.quote(getObjectPath(sha256));
+        String source = ShellUtils.quote(remotePath);
+        String command = String.format(
+                "mkdir -p %s && { ln -f %s %s 2>/dev/null || { cp -f %s %s.tmp && mv -f %s.tmp %s; }; }",
+                ShellUtils.quote(transferProperties.getCas().getDir()),
+                source, objectPath, source, objectPath, objectPath, objectPath);
+        try {
+            connection.executeCommand(command);
+        } catch (CommandExecutionException e) {
+            log.warn("服务器 [{}] 写入远程缓存失败: {}", serverId, e.getMessage());
+            return;
+        }
+
+        redisUtils.hSet(getIndexKey(serverId), sha256, RemoteArtifact.builder()
+                .sha256(sha256)
+                .size(size)
+                .lastAccessTime(System.currentTimeMillis())
+                .build());
+        evict(connection);
+    }
+
+    /**
+     * 缓存实际占用超过上限时，按最近使用时间从旧到新删除，直到回到上限以内。
+     * 占用以远程磁盘为准：链接数大于 1 的对象仍被部署文件硬链接引用，删除后并不释放空间，
+     * 因此既不计入占用也不参与淘汰；索引中有、磁盘上已不存在的对象顺带从索引中移除。
+     */
+    public synchronized void evict(ServerConnection connection) {
+        String serverId = connection.getServerInfo().getServerId();
+        String indexKey = getIndexKey(serverId);
+        List<CachedObject> objects;
+        try {
+            objects = listObjects(connection);
+        } catch (CommandExecutionException e) {
+            log.warn("服务器 [{}] 远程缓存占用统计失败: {}", serverId, e.getMessage());
+            return;
+        }
+
+        Map<Object, Object> index = redisUtils.hGetAll(indexKey);
+        Set<String> existing = new HashSet<>();
+        objects.forEach(object -> existing.add(object.name()));
+        Object[] missing = index.keySet().stream().filter(key -> !existing.contains(key)).toArray();
+        if (missing.length > 0) {
+            redisUtils.hDelete(indexKey, missing);
+        }
+
+        List<CachedObject> evictable = new ArrayList<>(objects.stream()
+                .filter(object -> object.links() == 1)
+                .toList());
+        long total = evictable.stream().mapToLong(CachedObject::size).sum();
+        long maxSize = transferProperties.getCas().getMaxSize().toBytes();
+        if (total <= maxSize) {
+            return;
+        }
+
+        // 不在索引中的对象（如中断遗留的临时文件）视为最久未使用
+        evictable.sort(Comparator.comparingLong(object -> index.get(object.name()) instanceof RemoteArtifact artifact
+                && artifact.getLastAccessTime() != null ? artifact.getLastAccessTime() : 0L));
+        List<String> evicted = new ArrayList<>();
+        StringBuilder command = new StringBuilder("rm -f");
+        for (CachedObject object : evictable) {
+            if (total <= maxSize) {
+                break;
+            }
+            evicted.add(object.name());
+            command.append(' ').append(ShellUtils.quote(getObjectPath(object.name())));
+            total -= object.size();
+        }
+
+        try {
+            connection.executeCommand(command.toString());
+            redisUtils.hDelete(indexKey, evicted.toArray());
+            log.info("服务器 [{}] 远程缓存淘汰 {} 个对象，剩余 {} 字节", serverId, evicted.size(), total);
+        } catch (CommandExecutionException e) {
+            log.warn("服务器 [{}] 远程缓存淘汰失败: {}", serverId, e.getMessage());
+        }
+    }
+
+    /**
+     * 一条命令列出缓存目录下的全部对象及其大小、硬链接数
+     */
+    private List<CachedObject> listObjects(ServerConnection connection) throws CommandExecutionException {
+        String output = connection.executeCommand(String.format(
+                "find %s -maxdepth 1 -type f -printf '%%f %%s %%n\\n' 2>/dev/null || true",
+                ShellUtils.quote(transferProperties.getCas().getDir())));
+        List<CachedObject> objects = new ArrayList<>();
+        for (String line : output.lines().toList()) {
+            String[] parts = line.trim().split(" ");
+            if (parts.length == 3) {
+                objects.add(new CachedObject(parts[0], Long.parseLong(parts[1]), Integer.parseInt(parts[2])));
+            }
+        }
+        return objects;
+    }
+
+    private String getObjectPath(String sha256) {
+        return transferProperties.getCas().getDir() + "/" + sha256;
+    }
+
+    private String getIndexKey(String serverId) {
+        return REDIS_KEY_PREFIX + serverId;
+    }
+
+    private record CachedObject(String name, long size, int links) {
+    }
+}
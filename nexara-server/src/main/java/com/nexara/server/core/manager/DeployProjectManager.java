@@ -1,6 +1,7 @@
 package com.nexara.server.core.manager;
 
 import com.nexara.server.core.connect.ConnectionFactory;
+import com.nexara.server.core.connect.ConnectionLease;
 import com.nexara.server.core.connect.product.ServerConnection;
 import com.nexara.server.core.docker.DockerComposeFactory;
 import com.nexara.server.mapper.ServerInfoMapper;
@@ -50,12 +51,13 @@ public class DeployProjectManager {
             dockerComposeFactory.generateComposeFile(dto.getFrontends(),dto.getBackends(), projectPath);
 
             // 4. 上传整个项目目录到远程服务器
-            ServerConnection connection = connectionFactory.createConnection(
-                    serverInfoMapper.findByServerId(dto.getServerId())
-            );
-//            uploadEntireProject(dto.getProjectName(), projectPath, connection);
+            try (ConnectionLease lease = connectionFactory.acquire(
+                    serverInfoMapper.findByServerId(dto.getServerId()))) {
+                ServerConnection connection = lease.getConnection();
+//                uploadEntireProject(dto.getProjectName(), projectPath, connection);
 
-            // 5. 执行部署
+                // 5. 执行部署
+            }
 
         } catch (Exception e) {
             log.error("Deployment failed", e);
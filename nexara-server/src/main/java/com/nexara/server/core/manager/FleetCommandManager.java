@@ -0,0 +1,198 @@
+package com.nexara.server.core.manager;
+
+import com.nexara.server.core.connect.ConnectionFactory;
+import com.nexara.server.core.connect.ConnectionLease;
+import com.nexara.server.core.connect.product.CommandResult;
+import com.nexara.server.mapper.ServerInfoMapper;
+import com.nexara.server.polo.model.FleetCommandRequest;
+import com.nexara.server.polo.model.HostCommandResult;
+import com.nexara.server.polo.model.ServerInfo;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * 在多台服务器上并发执行同一条命令。
+ * 每台服务器一个虚拟线程，并发数同时受全局上限和单主机上限约束（跨请求共享），
+ * 每台服务器执行完成后立即回调结果，不等待其他服务器。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FleetCommandManager {
+
+    private static final int DEFAULT_TIMEOUT_SECONDS = 60;
+    // 单台服务器返回的输出上限（字符）
+    private static final int MAX_OUTPUT_CHARS = 64 * 1024;
+
+    private final ServerInfoMapper serverInfoMapper;
+    private final ConnectionFactory connectionFactory;
+
+    private final ExecutorService virtualThreadExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+    private volatile Semaphore globalPermits;
+
+    /**
+     * 所有批量命令同时执行的服务器数上限
+     */
+    @Value("${nexara.fleet.max-concurrency:64}")
+    private int maxConcurrency;
+
+    /**
+     * 同一台主机上同时执行的批量命令数上限
+     */
+    @Value("${nexara.fleet.per-host-concurrency:2}")
+    private int perHostConcurrency;
+
+    /**
+     * 根据请求选择目标服务器
+     *
+     * @throws IllegalArgumentException 未指定选择条件或没有选中任何服务器
+     */
+    public List<ServerInfo> selectServers(FleetCommandRequest request) {
+        boolean byIds = request.getServerIds() != null && !request.getServerIds().isEmpty();
+        boolean byPattern = request.getServerPattern() != null && !request.getServerPattern().isBlank();
+        if (!byIds && !byPattern && !Boolean.TRUE.equals(request.getAll())) {
+            throw new IllegalArgumentException("请指定 serverIds 或 serverPattern，在全部服务器上执行需指定 all=true");
+        }
+
+        List<ServerInfo> servers = serverInfoMapper.findAllServerInfo();
+        if (byIds) {
+            Set<String> serverIds = new HashSet<>(request.getServerIds());
+            servers = servers.stream().filter(server -> serverIds.contains(server.getServerId())).toList();
+        } else if (byPattern) {
+            Pattern pattern;
+            try {
+                pattern = Pattern.compile(request.getServerPattern());
+            } catch (PatternSyntaxException e) {
+                throw new IllegalArgumentException("serverPattern 不是合法的正则表达式: " + e.getDescription());
+            }
+            servers = servers.stream()
+                    .filter(server -> pattern.matcher(server.getServerId()).find()
+                            || pattern.matcher(server.getHost()).find())
+                    .toList();
+        }
+        if (servers.isEmpty()) {
+            throw new IllegalArgumentException("没有符合条件的服务器");
+        }
+        return servers;
+    }
+
+    /**
+     * 在选中的服务器上并发执行命令，每台服务器完成时回调 onResult（回调串行调用），全部完成后按完成顺序返回结果
+     */
+    public List<HostCommandResult> execute(List<ServerInfo> servers, FleetCommandRequest request,
+                                           Consumer<HostCommandResult> onResult) {
+        long timeoutMillis = (request.getTimeoutSeconds() != null && request.getTimeoutSeconds() > 0
+                ? request.getTimeoutSeconds() : DEFAULT_TIMEOUT_SECONDS) * 1000L;
+        log.info("批量执行命令，共 {} 台服务器: {}", servers.size(), request.getCommand());
+
+        List<HostCommandResult> results = new ArrayList<>();
+        // onResult 可能阻塞（如 SSE 推送），在 synchronized 中阻塞会占住虚拟线程的载体线程
+        ReentrantLock resultLock = new ReentrantLock();
+        List<Future<?>> futures = new ArrayList<>();
+        for (ServerInfo server : servers) {
+            futures.add(virtualThreadExecutor.submit(() -> {
+                HostCommandResult result = executeOnHost(server, request.getCommand(), timeoutMillis);
+                resultLock.lock();
+                try {
+                    results.add(result);
+                    onResult.accept(result);
+                } finally {
+                    resultLock.unlock();
+                }
+            }));
+        }
+
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.cancel(true));
+                break;
+            } catch (ExecutionException e) {
+                log.error("批量命令回调异常", e.getCause());
+            }
+        }
+
+        resultLock.lock();
+        try {
+            return new ArrayList<>(results);
+        } finally {
+            resultLock.unlock();
+        }
+    }
+
+    private HostCommandResult executeOnHost(ServerInfo server, String command, long timeoutMillis) {
+        HostCommandResult.HostCommandResultBuilder result = HostCommandResult.builder()
+                .serverId(server.getServerId())
+                .host(server.getHost());
+        Semaphore hostPermit = hostPermits.computeIfAbsent(server.getHost() + ":" + server.getPort(),
+                k -> new Semaphore(perHostConcurrency));
+        Semaphore globalPermit = getGlobalPermits();
+        long start = System.currentTimeMillis();
+
+        try {
+            // 先拿单主机名额再拿全局名额，避免占着全局名额等待繁忙主机
+            hostPermit.acquire();
+            try {
+                globalPermit.acquire();
+                try (ConnectionLease lease = connectionFactory.acquire(server)) {
+                    start = System.currentTimeMillis();
+                    CommandResult commandResult = lease.getConnection().runCommand(command, timeoutMillis);
+                    result.success(commandResult.isSuccess())
+                            .exitCode(commandResult.exitCode())
+                            .stdout(truncate(commandResult.stdout()))
+                            .stderr(truncate(commandResult.stderr()));
+                } finally {
+                    globalPermit.release();
+                }
+            } finally {
+                hostPermit.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.success(false).error("任务被中断");
+        } catch (Exception e) {
+            log.warn("服务器 [{}] 批量命令执行失败: {}", server.getServerId(), e.getMessage());
+            result.success(false).error(e.getMessage());
+        }
+        return result.durationMillis(System.currentTimeMillis() - start).build();
+    }
+
+    private Semaphore getGlobalPermits() {
+        if (globalPermits == null) {
+            synchronized (this) {
+                if (globalPermits == null) {
+                    globalPermits = new Semaphore(maxConcurrency, true);
+                }
+            }
+        }
+        return globalPermits;
+    }
+
+    private static String truncate(String output) {
+        if (output == null || output.length() <= MAX_OUTPUT_CHARS) {
+            return output;
+        }
+        return output.substring(0, MAX_OUTPUT_CHARS) + "\n...（输出过长，已截断）";
+    }
+}
@@ -1,7 +1,7 @@
 package com.nexara.server.core.manager;
 
 import com.nexara.server.core.connect.ConnectionFactory;
-import com.nexara.server.core.connect.product.ServerConnection;
+import com.nexara.server.core.connect.ConnectionLease;
 import com.nexara.server.core.os.OSFactory;
 import com.nexara.server.core.os.system.product.OperatingSystem;
 import com.nexara.server.mapper.ServerInfoMapper;
@@ -17,11 +17,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
-import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 import java.util.UUID;
-import java.util.WeakHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -41,33 +38,22 @@ public class InitEnvTaskManager {
     private static final long TASK_EXPIRATION_DAYS = 3L;
 
     private final ExecutorService executor = Executors.newCachedThreadPool();
-    private final Map<String, ServerResources> serverResourcesCache = Collections.synchronizedMap(new WeakHashMap<>());
-
-    private ServerResources getServerResources(String serverId) {
-        return serverResourcesCache.computeIfAbsent(serverId, id -> {
-            try {
-                ServerInfo info = serverInfoMapper.findByServerId(id);
-                if (info == null) {
-                    throw new RuntimeException("服务器信息不存在: " + id);
-                }
 
-                ServerConnection con = connectionFactory.createConnection(info);
-                OperatingSystem os = osFactory.createOS(con);
-                return new ServerResources(con, os);
-            } catch (Exception e) {
-                throw new RuntimeException("创建服务器资源失败: " + e.getMessage(), e);
-            }
-        });
-    }
+    /**
+     * 借用服务器连接，并据此创建对应的操作系统实例
+     */
+    private ServerResources acquireServerResources(String serverId) {
+        ServerInfo info = serverInfoMapper.findByServerId(serverId);
+        if (info == null) {
+            throw new RuntimeException("服务器信息不存在: " + serverId);
+        }
 
-    private void cleanupResources(String serverId) {
-        ServerResources resources = serverResourcesCache.remove(serverId);
-        if (resources != null) {
-            try {
-                resources.connection().close();
-            } catch (Exception e) {
-                log.warn("关闭服务器[{}]连接失败: {}", serverId, e.getMessage());
-            }
+        ConnectionLease lease = connectionFactory.acquire(info);
+        try {
+            return new ServerResources(lease, osFactory.createOS(lease.getConnection()));
+        } catch (Exception e) {
+            lease.close();
+            throw new RuntimeException("创建服务器资源失败: " + e.getMessage(), e);
         }
     }
 
@@ -77,9 +63,7 @@ public class InitEnvTaskManager {
 
         executor.execute(() -> {
             ServiceType currentType = null;
-            try {
-                ServerResources resources = getServerResources(serverId);
-
+            try (ServerResources resources = acquireServerResources(serverId)) {
                 for (ServiceType type : services) {
                     currentType = type;
                     updateTaskStatus(taskId, type, TaskStatus.RUNNING);
@@ -94,8 +78,6 @@ public class InitEnvTaskManager {
                     updateTaskStatus(taskId, currentType, TaskStatus.FAILED);
                 }
                 failTask(taskId, e.getMessage());
-            } finally {
-                cleanupResources(serverId);
             }
         });
 
@@ -224,6 +206,10 @@ public class InitEnvTaskManager {
         return TASK_KEY_PREFIX + taskId;
     }
 
-    private record ServerResources(ServerConnection connection, OperatingSystem os) {
+    private record ServerResources(ConnectionLease lease, OperatingSystem os) implements AutoCloseable {
+        @Override
+        public void close() {
+            lease.close();
+        }
     }
 }
\ No newline at end of file
@@ -1,68 +1,83 @@
 package com.nexara.server.core.manager;
 
+import com.nexara.server.core.monitor.NodeExporterClient;
+import com.nexara.server.core.monitor.NodeMetrics;
 import com.nexara.server.polo.enums.LoadStatus;
 import com.nexara.server.polo.enums.NetworkStatus;
 import com.nexara.server.polo.model.ServerStatus;
 import lombok.RequiredArgsConstructor;
-import lombok.SneakyThrows;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
 
+import java.net.http.HttpTimeoutException;
 import java.util.Date;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
 
 @Component
 @RequiredArgsConstructor
 public class ServerMonitorManager {
 
-    private final RestTemplate restTemplate;
+    private static final double BYTES_PER_GB = 1024.0 * 1024.0 * 1024.0;
+
+    private final NodeExporterClient nodeExporterClient;
 
     /**
      * 获取服务器监控指标（纯工具方法，无缓存无存储）
      */
-    @SneakyThrows
     public ServerStatus getServerMetrics(String host) {
-        String nodeExporterUrl = "http://" + host + ":9100";
+        return getServerMetricsAsync(host).join();
+    }
+
+    /**
+     * 异步获取服务器监控指标，采集失败时返回带 error 的 ServerStatus，future 本身不会异常结束
+     */
+    public CompletableFuture<ServerStatus> getServerMetricsAsync(String host) {
+        return getServerMetricsAsync(host, Long.MAX_VALUE);
+    }
+
+    /**
+     * 异步获取服务器监控指标，最晚在 deadline（毫秒时间戳）结束，到期时请求已被取消，返回带 error 的 ServerStatus
+     */
+    public CompletableFuture<ServerStatus> getServerMetricsAsync(String host, long deadline) {
+        return nodeExporterClient.scrapeAsync(host, deadline)
+                .handle((metrics, e) -> toServerStatus(host, metrics, e));
+    }
+
+    private ServerStatus toServerStatus(String host, NodeMetrics metrics, Throwable error) {
         ServerStatus serverStatus = new ServerStatus();
         serverStatus.setServerId(host); // 先设置服务器ID
-
-        try {
-            // 直接通过HTTP获取Node Exporter指标
-            ResponseEntity<String> response = restTemplate.getForEntity(nodeExporterUrl + "/metrics", String.class);
-            String metricsData = response.getBody();
-
-            if (metricsData == null || metricsData.trim().isEmpty()) {
-                serverStatus.setError("无法获取监控指标，请检查Node Exporter是否运行");
-                serverStatus.setLastUpdated(new Date());
-                return serverStatus;
-            }
-
-            // 获取各项指标
-            int cpuCores = extractCpuCores(metricsData);
-            double memoryTotalGB = getTotalMemoryGB(metricsData);
-            double memoryUsagePercent = getValidatedMemoryUsage(metricsData);
-            double diskTotalGB = getTotalDiskSizeGB(metricsData);
-            double diskUsagePercent = getTotalDiskUsage(metricsData);
-            NetworkStatus networkStatus = getValidatedNetworkStatus(metricsData);
-            LoadStatus loadStatus = calculateLoadStatus(memoryUsagePercent, diskUsagePercent);
-
-            // 设置ServerStatus对象
-            serverStatus.setCpuCores(cpuCores);
-            serverStatus.setMemorySizeGb((float) memoryTotalGB);
-            serverStatus.setMemoryUsagePercent((float) memoryUsagePercent);
-            serverStatus.setDiskSizeGb((float) diskTotalGB);
-            serverStatus.setDiskUsagePercent((float) diskUsagePercent);
-            serverStatus.setNetworkStatus(networkStatus);
-            serverStatus.setLoadStatus(loadStatus);
-            serverStatus.setLastUpdated(new Date());
-
-        } catch (Exception e) {
-            serverStatus.setError("获取系统指标时发生错误: " + e.getMessage());
-            serverStatus.setLastUpdated(new Date());
+        serverStatus.setLastUpdated(new Date());
+
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            String reason = cause instanceof TimeoutException || cause instanceof HttpTimeoutException
+                    ? "采集超时" : String.valueOf(cause.getMessage());
+            serverStatus.setError("获取系统指标时发生错误: " + reason);
+            return serverStatus;
+        }
+        if (metrics.isEmpty()) {
+            serverStatus.setError("无法获取监控指标，请检查Node Exporter是否运行");
+            return serverStatus;
         }
 
+        // 获取各项指标
+        int cpuCores = metrics.getCpuCores();
+        double memoryTotalGB = getTotalMemoryGB(metrics);
+        double memoryUsagePercent = getValidatedMemoryUsage(metrics);
+        double diskTotalGB = round(metrics.getDiskTotalBytes() / BYTES_PER_GB);
+        double diskUsagePercent = getTotalDiskUsage(metrics);
+        NetworkStatus networkStatus = metrics.isNetworkUp() ? NetworkStatus.ONLINE : NetworkStatus.OFFLINE;
+        LoadStatus loadStatus = calculateLoadStatus(memoryUsagePercent, diskUsagePercent);
+
+        // 设置ServerStatus对象
+        serverStatus.setCpuCores(cpuCores);
+        serverStatus.setMemorySizeGb((float) memoryTotalGB);
+        serverStatus.setMemoryUsagePercent((float) memoryUsagePercent);
+        serverStatus.setDiskSizeGb((float) diskTotalGB);
+        serverStatus.setDiskUsagePercent((float) diskUsagePercent);
+        serverStatus.setNetworkStatus(networkStatus);
+        serverStatus.setLoadStatus(loadStatus);
         return serverStatus;
     }
 
@@ -85,127 +100,34 @@ public class ServerMonitorManager {
         }
     }
 
-    // 以下为指标提取方法保持不变
-    private int extractCpuCores(String metrics) {
-        java.util.Set<String> cpuSet = new java.util.HashSet<>();
-        Pattern pattern = Pattern.compile("node_cpu_seconds_total\\{cpu=\"(\\d+)\"");
-        Matcher matcher = pattern.matcher(metrics);
-
-        while (matcher.find()) {
-            cpuSet.add(matcher.group(1));
-        }
-        return Math.max(1, cpuSet.size());
-    }
-
-    private double getValidatedMemoryUsage(String metrics) {
-        try {
-            double memTotal = extractValue(metrics, "node_memory_MemTotal_bytes");
-            double memAvailable = extractValue(metrics, "node_memory_MemAvailable_bytes");
-
-            if (memTotal <= 0) return 0.0;
-
-            double used = memTotal - memAvailable;
-            double usagePercent = (used / memTotal) * 100;
-            return Math.round(usagePercent * 10.0) / 10.0;
-        } catch (Exception e) {
+    private double getValidatedMemoryUsage(NodeMetrics metrics) {
+        double memTotal = metrics.getMemTotalBytes();
+        double memAvailable = metrics.getMemAvailableBytes();
+        if (Double.isNaN(memTotal) || Double.isNaN(memAvailable) || memTotal <= 0) {
             return 0.0;
         }
-    }
 
-    private double getTotalMemoryGB(String metrics) {
-        try {
-            double memTotal = extractValue(metrics, "node_memory_MemTotal_bytes");
-            return Math.round((memTotal / (1024.0 * 1024.0 * 1024.0)) * 10.0) / 10.0;
-        } catch (Exception e) {
-            return 0.0;
-        }
+        double used = memTotal - memAvailable;
+        return round((used / memTotal) * 100);
     }
 
-    private double getTotalDiskUsage(String metrics) {
-        try {
-            Pattern fsPattern = Pattern.compile("node_filesystem_size_bytes\\{[^}]*mountpoint=\"([^\"]+)\"[^}]*}\\s+([0-9.e+]+)");
-            Matcher fsMatcher = fsPattern.matcher(metrics);
-
-            double totalSize = 0;
-            double totalUsed = 0;
-            java.util.Set<String> processedMounts = new java.util.HashSet<>();
-
-            while (fsMatcher.find()) {
-                String mountPoint = fsMatcher.group(1);
-                if (processedMounts.contains(mountPoint)) continue;
-                processedMounts.add(mountPoint);
-
-                double size = Double.parseDouble(fsMatcher.group(2));
-                if (size > 0) {
-                    double avail = extractFilesystemValue(metrics, mountPoint);
-                    totalSize += size;
-                    totalUsed += (size - avail);
-                }
-            }
-
-            if (totalSize <= 0) return 0.0;
-
-            double usagePercent = (totalUsed / totalSize) * 100;
-            return Math.round(usagePercent * 10.0) / 10.0;
-        } catch (Exception e) {
-            return 0.0;
-        }
+    private double getTotalMemoryGB(NodeMetrics metrics) {
+        double memTotal = metrics.getMemTotalBytes();
+        return Double.isNaN(memTotal) ? 0.0 : round(memTotal / BYTES_PER_GB);
     }
 
-    private double getTotalDiskSizeGB(String metrics) {
-        try {
-            Pattern pattern = Pattern.compile("node_filesystem_size_bytes\\{[^}]*mountpoint=\"([^\"]+)\"[^}]*}\\s+([0-9.e+]+)");
-            Matcher matcher = pattern.matcher(metrics);
-
-            double totalSize = 0;
-            java.util.Set<String> processedMounts = new java.util.HashSet<>();
-
-            while (matcher.find()) {
-                String mountPoint = matcher.group(1);
-                if (processedMounts.contains(mountPoint)) continue;
-                processedMounts.add(mountPoint);
-
-                double size = Double.parseDouble(matcher.group(2));
-                if (size > 0) {
-                    totalSize += size;
-                }
-            }
-
-            return Math.round((totalSize / (1024.0 * 1024.0 * 1024.0)) * 10.0) / 10.0;
-        } catch (Exception e) {
+    private double getTotalDiskUsage(NodeMetrics metrics) {
+        double totalSize = metrics.getDiskTotalBytes();
+        if (totalSize <= 0) {
             return 0.0;
         }
+        return round((metrics.getDiskUsedBytes() / totalSize) * 100);
     }
 
-    private NetworkStatus getValidatedNetworkStatus(String metrics) {
-        try {
-            Pattern pattern = Pattern.compile("node_network_up\\{device=\"(eth\\d+|ens\\d+|enp\\d+)\"}\\s+1");
-            Matcher matcher = pattern.matcher(metrics);
-
-            if (matcher.find()) {
-                return NetworkStatus.ONLINE;
-            }
-            return NetworkStatus.OFFLINE;
-        } catch (Exception e) {
-            return NetworkStatus.UNSTABLE;
-        }
-    }
-
-    private double extractValue(String metrics, String metricName) {
-        Pattern pattern = Pattern.compile(metricName + "\\s+([0-9.e+]+)");
-        Matcher matcher = pattern.matcher(metrics);
-        if (matcher.find()) {
-            return Double.parseDouble(matcher.group(1));
-        }
-        throw new IllegalArgumentException("未找到指标: " + metricName);
-    }
-
-    private double extractFilesystemValue(String metrics, String mountpoint) {
-        Pattern pattern = Pattern.compile("node_filesystem_avail_bytes" + "\\{[^}]*mountpoint=\"" + Pattern.quote(mountpoint) + "\"[^}]*}\\s+([0-9.e+]+)");
-        Matcher matcher = pattern.matcher(metrics);
-        if (matcher.find()) {
-            return Double.parseDouble(matcher.group(1));
-        }
-        return 0.0;
+    /**
+     * 保留一位小数
+     */
+    private static double round(double value) {
+        return Math.round(value * 10.0) / 10.0;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,213 @@
+package com.nexara.server.core.manager;
+
+import com.nexara.server.config.MonitorProperties;
+import com.nexara.server.mapper.ServerStatusMapper;
+import com.nexara.server.polo.model.ServerStatus;
+import com.nexara.server.polo.model.WriteBehindMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 采集结果的异步批量写入（write-behind）。
+ * 采集线程只把记录放入队列；后台线程从第一条记录入队起最多等待 maxLatency，
+ * 或凑满 batchSize 条后，用 MyBatis BATCH 执行器在一个事务内写入，每批只提交一次。
+ * 整批写入失败时回滚后逐条重试，只丢弃本身写入失败的记录。
+ * 队列满时新记录直接丢弃并计数，不阻塞采集。
+ */
+@Log4j2
+@Component
+public class ServerStatusBatchWriter {
+
+    private final SqlSessionFactory sqlSessionFactory;
+    private final MonitorProperties.WriteBehind config;
+    private final BlockingQueue<ServerStatus> queue;
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong totalFlushMillis = new AtomicLong();
+    private volatile long lastFlushMillis;
+    private volatile long maxFlushMillis;
+    private volatile int lastBatchSize;
+
+    public ServerStatusBatchWriter(SqlSessionFactory sqlSessionFactory, MonitorProperties monitorProperties) {
+        this.sqlSessionFactory = sqlSessionFactory;
+        this.config = monitorProperties.getWriteBehind();
+        this.queue = new LinkedBlockingQueue<>(config.getQueueCapacity());
+        this.flusher = Thread.ofPlatform().name("server-status-writer").daemon().start(this::run);
+    }
+
+    /**
+     * 记录入队，队列已满时丢弃
+     */
+    public void submit(ServerStatus serverStatus) {
+        if (!queue.offer(serverStatus)) {
+            long dropped = droppedCount.incrementAndGet();
+            log.warn("监控数据写入队列已满（{} 条），丢弃服务器 {} 的记录，累计丢弃 {} 条",
+                    config.getQueueCapacity(), serverStatus.getServerId(), dropped);
+        }
+    }
+
+    public WriteBehindMetrics getMetrics() {
+        long flushes = flushCount.get();
+        return WriteBehindMetrics.builder()
+                .queueDepth(queue.size())
+                .queueCapacity(config.getQueueCapacity())
+                .writtenCount(writtenCount.get())
+                .droppedCount(droppedCount.get())
+                .flushCount(flushes)
+                .lastBatchSize(lastBatchSize)
+                .lastFlushMillis(lastFlushMillis)
+                .meanFlushMillis(flushes == 0 ? 0 : totalFlushMillis.get() / flushes)
+                .maxFlushMillis(maxFlushMillis)
+                .build();
+    }
+
+    private void run() {
+        List<ServerStatus> batch = new ArrayList<>(config.getBatchSize());
+        while (running || !queue.isEmpty()) {
+            try {
+                collect(batch);
+            } catch (InterruptedException e) {
+                // 关闭时被唤醒，继续写完已取出和队列中剩余的记录
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 等待第一条记录，然后在 maxLatency 内尽量凑满一批
+     */
+    private void collect(List<ServerStatus> batch) throws InterruptedException {
+        ServerStatus first = running ? queue.poll(1, TimeUnit.SECONDS) : queue.poll();
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + config.getMaxLatency().toNanos();
+        while (batch.size() < config.getBatchSize()) {
+            if (queue.drainTo(batch, config.getBatchSize() - batch.size()) > 0) {
+                continue;
+            }
+            long remaining = deadline - System.nanoTime();
+            ServerStatus next = running && remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    /**
+     * 一个事务写入整批，失败时回滚并逐条重试
+     */
+    private void flush(List<ServerStatus> batch) {
+        long start = System.nanoTime();
+        int written;
+        try {
+            writeBatch(batch);
+            written = batch.size();
+        } catch (Exception e) {
+            log.warn("批量写入 {} 条监控数据失败，改为逐条写入: {}", batch.size(), e.getMessage());
+            written = writeEach(batch);
+        }
+
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        writtenCount.addAndGet(written);
+        flushCount.incrementAndGet();
+        totalFlushMillis.addAndGet(millis);
+        lastFlushMillis = millis;
+        lastBatchSize = batch.size();
+        maxFlushMillis = Math.max(maxFlushMillis, millis);
+        log.debug("批量写入 {} 条监控数据，耗时 {} ms，队列剩余 {} 条", written, millis, queue.size());
+    }
+
+    /**
+     * 逐条写入，每条单独自动提交；写入失败的记录丢弃并计数，返回写入成功的条数
+     */
+    private int writeEach(List<ServerStatus> batch) {
+        int written = 0;
+        Exception firstError = null;
+        try (SqlSession session = sqlSessionFactory.openSession(ExecutorType.SIMPLE)) {
+            ServerStatusMapper mapper = session.getMapper(ServerStatusMapper.class);
+            for (ServerStatus serverStatus : batch) {
+                try {
+                    mapper.insert(serverStatus);
+                    written++;
+                } catch (RuntimeException e) {
+                    if (firstError == null) {
+                        firstError = e;
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            firstError = e;
+        }
+
+        int dropped = batch.size() - written;
+        if (dropped > 0) {
+            droppedCount.addAndGet(dropped);
+            log.error("逐条写入 {} 条监控数据，{} 条失败已丢弃", batch.size(), dropped, firstError);
+        }
+        return written;
+    }
+
+    /**
+     * mybatis-spring 的事务工厂会忽略 openSession 的 autoCommit 参数，连接保持自动提交，
+     * session.commit / rollback 不起作用；因此直接在底层连接上关闭自动提交，整批提交或回滚，结束后恢复
+     */
+    private void writeBatch(List<ServerStatus> batch) throws SQLException {
+        try (SqlSession session = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+            Connection connection = session.getConnection();
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                ServerStatusMapper mapper = session.getMapper(ServerStatusMapper.class);
+                for (ServerStatus serverStatus : batch) {
+                    mapper.insert(serverStatus);
+                }
+                session.flushStatements();
+                connection.commit();
+            } catch (RuntimeException | SQLException e) {
+                try {
+                    connection.rollback();
+                } catch (SQLException rollbackException) {
+                    e.addSuppressed(rollbackException);
+                }
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    /**
+     * 停止接收新的等待，写完队列中剩余的记录后退出
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        flusher.interrupt();
+        flusher.join(TimeUnit.SECONDS.toMillis(10));
+        log.info("监控数据写入线程已停止，累计写入 {} 条，丢弃 {} 条", writtenCount.get(), droppedCount.get());
+    }
+}
@@ -0,0 +1,128 @@
+package com.nexara.server.core.manager;
+
+import com.nexara.server.config.MonitorProperties;
+import com.nexara.server.mapper.ServerStatusRollupMapper;
+import com.nexara.server.polo.enums.RollupResolution;
+import com.nexara.server.polo.model.ServerStatusRollup;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 监控历史的多粒度聚合：原始采集记录 → 1 分钟 → 1 小时 → 1 天，每级保存 min/avg/max。
+ * 每级只聚合水位线之后、已经完整的桶，并推进水位线，因此每次执行只处理新增数据；
+ * 聚合使用 insert or replace，中途失败后重跑结果不变。
+ * 各级数据按 {@link MonitorProperties.Retention} 清理，但不会删除尚未聚合到下一级的数据。
+ */
+@Log4j2
+@Component
+@RequiredArgsConstructor
+public class ServerStatusRollupManager {
+
+    /**
+     * 只聚合该时长之前的原始记录，留出采集结果写库的时间
+     */
+    private static final long RAW_SETTLE_MILLIS = 60_000L;
+
+    private final ServerStatusRollupMapper rollupMapper;
+    private final MonitorProperties monitorProperties;
+
+    /**
+     * 依次推进 1 分钟、1 小时、1 天的聚合
+     */
+    public void rollup() {
+        long upper = System.currentTimeMillis() - RAW_SETTLE_MILLIS;
+        for (RollupResolution resolution : List.of(RollupResolution.MINUTE, RollupResolution.HOUR, RollupResolution.DAY)) {
+            upper = rollup(resolution, upper);
+        }
+    }
+
+    /**
+     * 将 sourceUpper 之前的来源数据聚合到 resolution 级
+     *
+     * @return 该级新的水位线，即下一级可聚合的上界
+     */
+    private long rollup(RollupResolution resolution, long sourceUpper) {
+        long upper = sourceUpper - Math.floorMod(sourceUpper, resolution.getBucketMillis());
+        Long watermark = rollupMapper.selectWatermark(resolution.name());
+        long from = watermark != null ? watermark : 0L;
+        if (upper <= from) {
+            return from;
+        }
+
+        int buckets = resolution == RollupResolution.MINUTE
+                ? rollupMapper.rollupRaw(from, upper)
+                : rollupMapper.rollup(resolution.source().getTable(), resolution.getTable(),
+                resolution.getBucketMillis(), from, upper);
+        rollupMapper.upsertWatermark(resolution.name(), upper);
+        log.debug("监控历史聚合 [{}]：{} 个桶，水位线推进到 {}", resolution, buckets, upper);
+        return upper;
+    }
+
+    /**
+     * 按保留时长清理各级数据
+     */
+    public void cleanup() {
+        MonitorProperties.Retention retention = monitorProperties.getRetention();
+        long now = System.currentTimeMillis();
+
+        int raw = rollupMapper.deleteRawBefore(
+                cutoff(now, retention.getRaw(), RollupResolution.MINUTE));
+        int minute = rollupMapper.deleteBefore(RollupResolution.MINUTE.getTable(),
+                cutoff(now, retention.getMinute(), RollupResolution.HOUR));
+        int hour = rollupMapper.deleteBefore(RollupResolution.HOUR.getTable(),
+                cutoff(now, retention.getHour(), RollupResolution.DAY));
+        int day = rollupMapper.deleteBefore(RollupResolution.DAY.getTable(), now - retention.getDay().toMillis());
+        log.info("监控历史清理完成：原始 {} 条，1 分钟 {} 条，1 小时 {} 条，1 天 {} 条", raw, minute, hour, day);
+    }
+
+    /**
+     * 保留时长对应的截止时间，不超过下一级的水位线
+     */
+    private long cutoff(long now, Duration retention, RollupResolution next) {
+        Long watermark = rollupMapper.selectWatermark(next.name());
+        return Math.min(now - retention.toMillis(), watermark != null ? watermark : 0L);
+    }
+
+    /**
+     * 查询 [from, to) 内的监控历史。
+     * 选取桶宽不超过 step 的最粗粒度；所选粒度的数据已超出保留时长、覆盖不到 from 时改用更粗的粒度
+     */
+    public List<ServerStatusRollup> queryHistory(String serverId, long from, long to, Duration step) {
+        RollupResolution resolution = selectResolution(from, step);
+        log.debug("查询服务器 [{}] 监控历史，step={}，使用 {}", serverId, step, resolution);
+        return resolution == RollupResolution.RAW
+                ? rollupMapper.selectRawRange(serverId, from, to)
+                : rollupMapper.selectRange(resolution.getTable(), serverId, from, to);
+    }
+
+    private RollupResolution selectResolution(long from, Duration step) {
+        long now = System.currentTimeMillis();
+        RollupResolution[] resolutions = RollupResolution.values();
+        int index = 0;
+        for (int i = resolutions.length - 1; i >= 0; i--) {
+            if (resolutions[i].getBucketMillis() <= step.toMillis()) {
+                index = i;
+                break;
+            }
+        }
+        while (index < resolutions.length - 1
+                && from < now - retentionOf(resolutions[index]).toMillis()) {
+            index++;
+        }
+        return resolutions[index];
+    }
+
+    private Duration retentionOf(RollupResolution resolution) {
+        MonitorProperties.Retention retention = monitorProperties.getRetention();
+        return switch (resolution) {
+            case RAW -> retention.getRaw();
+            case MINUTE -> retention.getMinute();
+            case HOUR -> retention.getHour();
+            case DAY -> retention.getDay();
+        };
+    }
+}
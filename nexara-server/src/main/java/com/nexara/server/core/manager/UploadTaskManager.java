@@ -1,12 +1,15 @@
 package com.nexara.server.core.manager;
 
+import com.nexara.server.config.TransferProperties;
 import com.nexara.server.core.connect.ConnectionFactory;
+import com.nexara.server.core.connect.ConnectionLease;
 import com.nexara.server.core.connect.product.ServerConnection;
 import com.nexara.server.mapper.ServerInfoMapper;
 import com.nexara.server.polo.enums.UploadStatus;
 import com.nexara.server.polo.model.ServerInfo;
 import com.nexara.server.polo.model.UploadProgress;
 import com.nexara.server.polo.model.UploadTask;
+import com.nexara.server.util.HashUtils;
 import com.nexara.server.util.RedisUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -37,6 +40,8 @@ public class UploadTaskManager {
     private final ServerInfoMapper serverInfoMapper;
     private final ConnectionFactory connectionFactory;
     private final RedisUtils redisUtils;
+    private final TransferProperties transferProperties;
+    private final ArtifactCacheManager artifactCacheManager;
 
     private final ExecutorService virtualThreadExecutor = Executors.newVirtualThreadPerTaskExecutor();
     private static final String REDIS_KEY_PREFIX = "upload:";
@@ -278,10 +283,25 @@ public class UploadTaskManager {
             throw new RuntimeException("服务器不存在: " + serverId);
         }
 
-        try {
-            ServerConnection connection = connectionFactory.createConnection(serverInfo);
+        try (ConnectionLease lease = connectionFactory.acquire(serverInfo)) {
+            ServerConnection connection = lease.getConnection();
             File file = new File(filePath);
-            connection.uploadFile(filePath, "/nexara/" + file.getName());
+            String remotePath = "/nexara/" + file.getName();
+            // 服务器上已有相同内容时直接在远程链接；未启用缓存时不计算摘要
+            String sha256 = artifactCacheManager.isEnabled() ? HashUtils.sha256Hex(file.toPath()) : null;
+            if (sha256 != null && artifactCacheManager.linkFromCache(connection, sha256, remotePath)) {
+                return;
+            }
+            // 远程已有旧版本时优先增量上传
+            if (!connection.uploadFileDelta(filePath, remotePath)) {
+                // 断点续传，大文件的剩余部分走多通道并行上传
+                int streams = file.length() >= transferProperties.getParallelThreshold().toBytes()
+                        ? transferProperties.getStreams(serverId) : 1;
+                connection.uploadFileResumable(filePath, remotePath, streams, transferProperties.getRangeSize(serverId));
+            }
+            if (sha256 != null) {
+                artifactCacheManager.store(connection, sha256, remotePath, file.length());
+            }
         } catch (Exception e) {
             throw new RuntimeException("远程文件上传失败", e);
         }
@@ -0,0 +1,130 @@
+package com.nexara.server.core.monitor;
+
+import com.nexara.server.config.MonitorProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Node Exporter 采集客户端。
+ * 基于 JDK HttpClient：同一主机的 HTTP/1.1 连接保持复用，请求异步发出，
+ * HttpClient 只用 ioThreads 个线程收发数据；响应请求 gzip 压缩，
+ * 响应体以流的形式交给解析，边接收边解压边解析，不在内存中缓存整个响应。
+ * 读取响应体会阻塞等待数据，而数据由 HttpClient 的线程送达，因此解析放在单独的虚拟线程中，不占用 HttpClient 的线程。
+ * 每次采集的总耗时不超过 connectTimeout + readTimeout，卡住的 Exporter 不会占住调用方。
+ */
+@Log4j2
+@Component
+public class NodeExporterClient {
+
+    private final MonitorProperties properties;
+    private final ExecutorService executor;
+    private final ExecutorService parseExecutor;
+    private final HttpClient httpClient;
+
+    public NodeExporterClient(MonitorProperties properties) {
+        this.properties = properties;
+        this.executor = Executors.newFixedThreadPool(properties.getIoThreads(),
+                Thread.ofPlatform().name("node-exporter-", 0).daemon().factory());
+        this.parseExecutor = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("node-exporter-parse-", 0).factory());
+        this.httpClient = HttpClient.newBuilder()
+                // Node Exporter 只提供 HTTP/1.1，避免每个新连接先尝试 h2c 升级
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(properties.getConnectTimeout())
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .executor(executor)
+                .build();
+    }
+
+    /**
+     * 异步采集并解析主机的 /metrics；超时、连接失败或非 200 响应时 future 异常结束
+     */
+    public CompletableFuture<NodeMetrics> scrapeAsync(String host) {
+        return scrapeAsync(host, Long.MAX_VALUE);
+    }
+
+    /**
+     * 异步采集并解析主机的 /metrics，最多进行到 deadline（毫秒时间戳）与 connectTimeout + readTimeout 中较早的一个。
+     * 超时后请求与解析都被取消，返回的 future 在此之后才结束，调用方据此可以确认请求已不再占用连接。
+     */
+    public CompletableFuture<NodeMetrics> scrapeAsync(String host, long deadline) {
+        URI uri = URI.create("http://" + host + ":" + properties.getExporterPort() + "/metrics");
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .header("Accept-Encoding", "gzip")
+                .timeout(properties.getReadTimeout())
+                .GET()
+                .build();
+        long timeout = Math.min(properties.getConnectTimeout().plus(properties.getReadTimeout()).toMillis(),
+                Math.max(0, deadline - System.currentTimeMillis()));
+
+        CompletableFuture<HttpResponse<InputStream>> response =
+                httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream());
+        CompletableFuture<NodeMetrics> metrics = new CompletableFuture<>();
+        AtomicReference<Future<?>> parsing = new AtomicReference<>();
+        response.whenComplete((result, e) -> {
+            if (e != null) {
+                metrics.completeExceptionally(e);
+                return;
+            }
+            parsing.set(parseExecutor.submit(() -> {
+                try {
+                    metrics.complete(parseResponse(result));
+                } catch (Throwable t) {
+                    metrics.completeExceptionally(t);
+                }
+            }));
+            // 解析开始前已经超时
+            if (metrics.isCompletedExceptionally()) {
+                parsing.get().cancel(true);
+            }
+        });
+        return metrics
+                // request.timeout 只约束到响应头为止，响应体迟迟读不完时由这里兜底
+                .orTimeout(timeout, TimeUnit.MILLISECONDS)
+                .whenComplete((ignored, e) -> {
+                    if (e != null) {
+                        // 取消请求；已在读取响应体时中断解析线程，阻塞中的读取随之结束并关闭响应体
+                        response.cancel(true);
+                        Future<?> task = parsing.get();
+                        if (task != null) {
+                            task.cancel(true);
+                        }
+                    }
+                });
+    }
+
+    private NodeMetrics parseResponse(HttpResponse<InputStream> response) throws IOException {
+        try (InputStream body = response.body()) {
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Node Exporter 返回状态码 " + response.statusCode());
+            }
+            boolean gzip = response.headers().firstValue("Content-Encoding")
+                    .map("gzip"::equalsIgnoreCase)
+                    .orElse(false);
+            return NodeMetrics.parse(gzip ? new GZIPInputStream(body, 8192) : body);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        httpClient.shutdownNow();
+        parseExecutor.shutdownNow();
+        executor.shutdownNow();
+        log.info("Node Exporter 采集客户端已关闭");
+    }
+}
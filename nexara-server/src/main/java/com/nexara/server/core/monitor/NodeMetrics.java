@@ -0,0 +1,145 @@
+package com.nexara.server.core.monitor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * 从 Node Exporter 响应中取出的监控样本，只保留计算 ServerStatus 所需的指标。
+ * 同名指标（或同一挂载点）出现多次时以第一次为准。
+ */
+public class NodeMetrics implements PrometheusTextParser.SampleHandler {
+
+    private static final String CPU_SECONDS = "node_cpu_seconds_total";
+    private static final String MEM_TOTAL = "node_memory_MemTotal_bytes";
+    private static final String MEM_AVAILABLE = "node_memory_MemAvailable_bytes";
+    private static final String FS_SIZE = "node_filesystem_size_bytes";
+    private static final String FS_AVAIL = "node_filesystem_avail_bytes";
+    private static final String NETWORK_UP = "node_network_up";
+
+    private static final PrometheusTextParser PARSER = new PrometheusTextParser(
+            List.of(CPU_SECONDS, MEM_TOTAL, MEM_AVAILABLE, FS_SIZE, FS_AVAIL, NETWORK_UP));
+
+    /**
+     * 判断网络在线时只看物理网卡
+     */
+    private static final Pattern PHYSICAL_DEVICE = Pattern.compile("eth\\d+|ens\\d+|enp\\d+");
+
+    private final Set<String> cpus = new HashSet<>();
+    private double memTotalBytes = Double.NaN;
+    private double memAvailableBytes = Double.NaN;
+    // key = 挂载点，value = {size, avail}
+    private final Map<String, double[]> filesystems = new LinkedHashMap<>();
+    private boolean networkUp;
+    private int sampleCount;
+
+    /**
+     * 解析 Node Exporter 的 /metrics 响应
+     */
+    public static NodeMetrics parse(InputStream input) throws IOException {
+        NodeMetrics metrics = new NodeMetrics();
+        PARSER.parse(input, metrics);
+        return metrics;
+    }
+
+    @Override
+    public void onSample(String family, Map<String, String> labels, double value) {
+        sampleCount++;
+        switch (family) {
+            case CPU_SECONDS -> {
+                String cpu = labels.get("cpu");
+                if (cpu != null) {
+                    cpus.add(cpu);
+                }
+            }
+            case MEM_TOTAL -> {
+                if (Double.isNaN(memTotalBytes)) {
+                    memTotalBytes = value;
+                }
+            }
+            case MEM_AVAILABLE -> {
+                if (Double.isNaN(memAvailableBytes)) {
+                    memAvailableBytes = value;
+                }
+            }
+            case FS_SIZE, FS_AVAIL -> {
+                String mountpoint = labels.get("mountpoint");
+                if (mountpoint != null) {
+                    double[] entry = filesystems.computeIfAbsent(mountpoint, k -> new double[]{Double.NaN, Double.NaN});
+                    int index = FS_SIZE.equals(family) ? 0 : 1;
+                    if (Double.isNaN(entry[index])) {
+                        entry[index] = value;
+                    }
+                }
+            }
+            case NETWORK_UP -> {
+                String device = labels.get("device");
+                if (value == 1 && device != null && PHYSICAL_DEVICE.matcher(device).matches()) {
+                    networkUp = true;
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * 响应中没有任何关注的指标，通常说明目标不是 Node Exporter
+     */
+    public boolean isEmpty() {
+        return sampleCount == 0;
+    }
+
+    public int getCpuCores() {
+        return Math.max(1, cpus.size());
+    }
+
+    /**
+     * 总内存（字节），缺失时为 NaN
+     */
+    public double getMemTotalBytes() {
+        return memTotalBytes;
+    }
+
+    /**
+     * 可用内存（字节），缺失时为 NaN
+     */
+    public double getMemAvailableBytes() {
+        return memAvailableBytes;
+    }
+
+    /**
+     * 容量大于 0 的文件系统总容量（字节）
+     */
+    public double getDiskTotalBytes() {
+        double total = 0;
+        for (double[] entry : filesystems.values()) {
+            if (entry[0] > 0) {
+                total += entry[0];
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 容量大于 0 的文件系统已用空间（字节），缺少可用空间指标的挂载点视为全部已用
+     */
+    public double getDiskUsedBytes() {
+        double used = 0;
+        for (double[] entry : filesystems.values()) {
+            if (entry[0] > 0) {
+                used += entry[0] - (Double.isNaN(entry[1]) ? 0 : entry[1]);
+            }
+        }
+        return used;
+    }
+
+    public boolean isNetworkUp() {
+        return networkUp;
+    }
+}
@@ -0,0 +1,216 @@
+package com.nexara.server.core.monitor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Prometheus 文本格式（exposition format 0.0.4）的流式解析器。
+ * 按字节顺序读取一遍输入，注释行和未关注的指标只比较名称后跳过，
+ * 只有关注的指标才解析标签与数值并交给 {@link SampleHandler}，不会把整个响应读成字符串。
+ * 解析器本身无状态，可在多个线程间共享。
+ */
+public final class PrometheusTextParser {
+
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    private final byte[][] families;
+    private final String[] familyNames;
+
+    /**
+     * @param families 需要解析的指标名称，其余指标直接跳过
+     */
+    public PrometheusTextParser(Collection<String> families) {
+        this.familyNames = families.toArray(String[]::new);
+        this.families = new byte[familyNames.length][];
+        for (int i = 0; i < familyNames.length; i++) {
+            this.families[i] = familyNames[i].getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    /**
+     * 接收关注指标的每个样本
+     */
+    @FunctionalInterface
+    public interface SampleHandler {
+        /**
+         * @param family 指标名称，与构造时传入的字符串为同一实例
+         * @param labels 标签，无标签时为空 Map
+         * @param value  样本值，NaN 与 ±Inf 按 Double 对应值给出
+         */
+        void onSample(String family, Map<String, String> labels, double value);
+    }
+
+    /**
+     * 读取输入直到结束，不关闭输入流
+     *
+     * @return 交给 handler 的样本数
+     */
+    public int parse(InputStream input, SampleHandler handler) throws IOException {
+        byte[] buffer = new byte[READ_BUFFER_SIZE];
+        byte[] line = new byte[256];
+        int lineLength = 0;
+        int samples = 0;
+
+        int read;
+        while ((read = input.read(buffer)) != -1) {
+            int start = 0;
+            for (int i = 0; i < read; i++) {
+                if (buffer[i] != '\n') {
+                    continue;
+                }
+                if (lineLength == 0) {
+                    samples += parseLine(buffer, start, i, handler);
+                } else {
+                    line = append(line, lineLength, buffer, start, i);
+                    samples += parseLine(line, 0, lineLength + i - start, handler);
+                    lineLength = 0;
+                }
+                start = i + 1;
+            }
+            // 跨越读缓冲区边界的半行先暂存
+            if (start < read) {
+                line = append(line, lineLength, buffer, start, read);
+                lineLength += read - start;
+            }
+        }
+        if (lineLength > 0) {
+            samples += parseLine(line, 0, lineLength, handler);
+        }
+        return samples;
+    }
+
+    private static byte[] append(byte[] line, int lineLength, byte[] source, int from, int to) {
+        int required = lineLength + to - from;
+        if (required > line.length) {
+            line = Arrays.copyOf(line, Math.max(required, line.length * 2));
+        }
+        System.arraycopy(source, from, line, lineLength, to - from);
+        return line;
+    }
+
+    /**
+     * 解析一行样本：name{label="value",...} value [timestamp]
+     *
+     * @return 关注的样本返回 1，其余返回 0
+     */
+    private int parseLine(byte[] line, int from, int to, SampleHandler handler) {
+        if (to > from && line[to - 1] == '\r') {
+            to--;
+        }
+        if (from >= to || line[from] == '#') {
+            return 0;
+        }
+
+        int nameEnd = from;
+        while (nameEnd < to && line[nameEnd] != '{' && line[nameEnd] != ' ' && line[nameEnd] != '\t') {
+            nameEnd++;
+        }
+        int family = matchFamily(line, from, nameEnd);
+        if (family < 0) {
+            return 0;
+        }
+
+        int pos = nameEnd;
+        Map<String, String> labels = Collections.emptyMap();
+        if (pos < to && line[pos] == '{') {
+            labels = new HashMap<>(4);
+            pos = parseLabels(line, pos + 1, to, labels);
+            if (pos < 0) {
+                return 0;
+            }
+        }
+
+        while (pos < to && (line[pos] == ' ' || line[pos] == '\t')) {
+            pos++;
+        }
+        int valueEnd = pos;
+        while (valueEnd < to && line[valueEnd] != ' ' && line[valueEnd] != '\t') {
+            valueEnd++;
+        }
+        if (valueEnd == pos) {
+            return 0;
+        }
+
+        double value;
+        try {
+            value = parseValue(new String(line, pos, valueEnd - pos, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+        handler.onSample(familyNames[family], labels, value);
+        return 1;
+    }
+
+    private int matchFamily(byte[] line, int from, int to) {
+        int length = to - from;
+        for (int i = 0; i < families.length; i++) {
+            byte[] family = families[i];
+            if (family.length == length && Arrays.equals(family, 0, length, line, from, to)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 解析标签直到 '}'，标签值支持 \\、\" 与 \n 转义
+     *
+     * @return '}' 之后的位置，格式错误返回 -1
+     */
+    private static int parseLabels(byte[] line, int pos, int to, Map<String, String> labels) {
+        StringBuilder value = new StringBuilder();
+        while (pos < to) {
+            while (pos < to && (line[pos] == ',' || line[pos] == ' ')) {
+                pos++;
+            }
+            if (pos < to && line[pos] == '}') {
+                return pos + 1;
+            }
+
+            int keyStart = pos;
+            while (pos < to && line[pos] != '=') {
+                pos++;
+            }
+            if (pos + 1 >= to || line[pos + 1] != '"') {
+                return -1;
+            }
+            String key = new String(line, keyStart, pos - keyStart, StandardCharsets.US_ASCII).trim();
+            pos += 2;
+
+            value.setLength(0);
+            int chunkStart = pos;
+            while (pos < to && line[pos] != '"') {
+                if (line[pos] == '\\' && pos + 1 < to) {
+                    value.append(new String(line, chunkStart, pos - chunkStart, StandardCharsets.UTF_8));
+                    byte escaped = line[pos + 1];
+                    value.append(escaped == 'n' ? '\n' : (char) escaped);
+                    pos += 2;
+                    chunkStart = pos;
+                } else {
+                    pos++;
+                }
+            }
+            if (pos >= to) {
+                return -1;
+            }
+            value.append(new String(line, chunkStart, pos - chunkStart, StandardCharsets.UTF_8));
+            labels.put(key, value.toString());
+            pos++;
+        }
+        return -1;
+    }
+
+    private static double parseValue(String token) {
+        return switch (token) {
+            case "+Inf", "Inf" -> Double.POSITIVE_INFINITY;
+            case "-Inf" -> Double.NEGATIVE_INFINITY;
+            default -> Double.parseDouble(token);
+        };
+    }
+}
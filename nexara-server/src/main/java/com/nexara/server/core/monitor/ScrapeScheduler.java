@@ -0,0 +1,164 @@
+package com.nexara.server.core.monitor;
+
+import com.nexara.server.config.MonitorProperties;
+import com.nexara.server.polo.enums.LoadStatus;
+import com.nexara.server.polo.model.ServerInfo;
+import com.nexara.server.polo.model.ServerStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 按服务器独立安排采集时间，替代整点对全部服务器同时采集。
+ * 新加入的服务器在初始间隔内随机选取首次采集时间，之后每次采集的时间都带抖动，采集请求在时间上均匀分散。
+ * 采集间隔随服务器状态自适应：负载高或指标变化明显时缩短（最短 minInterval），
+ * 连续稳定时逐步放宽（最长 maxInterval），采集失败时回到初始间隔。
+ */
+@Log4j2
+@Component
+@RequiredArgsConstructor
+public class ScrapeScheduler {
+
+    private final MonitorProperties properties;
+
+    // key = serverId
+    private final Map<String, Schedule> schedules = new ConcurrentHashMap<>();
+
+    /**
+     * 与当前服务器列表同步：新服务器加入调度，已删除的服务器移出
+     */
+    public void sync(List<ServerInfo> servers, long now) {
+        Set<String> current = new HashSet<>();
+        long initial = properties.getInitialInterval().toMillis();
+        for (ServerInfo server : servers) {
+            current.add(server.getServerId());
+            schedules.compute(server.getServerId(), (id, schedule) -> {
+                if (schedule == null) {
+                    long offset = ThreadLocalRandom.current().nextLong(initial);
+                    log.debug("服务器 [{}] 加入采集调度，{} 毫秒后首次采集", id, offset);
+                    return new Schedule(server, initial, now + offset);
+                }
+                // 地址可能已修改
+                synchronized (schedule) {
+                    schedule.server = server;
+                }
+                return schedule;
+            });
+        }
+        schedules.keySet().removeIf(id -> !current.contains(id));
+    }
+
+    /**
+     * 取出已到采集时间且不在采集中的服务器（最多 limit 台，等待最久的优先），并标记为采集中
+     */
+    public List<ServerInfo> pollDue(long now, int limit) {
+        List<Schedule> candidates = new ArrayList<>();
+        for (Schedule schedule : schedules.values()) {
+            synchronized (schedule) {
+                if (!schedule.inFlight && schedule.nextScrapeAt <= now) {
+                    candidates.add(schedule);
+                }
+            }
+        }
+        if (candidates.size() > limit) {
+            candidates.sort(Comparator.comparingLong(schedule -> schedule.nextScrapeAt));
+        }
+
+        List<ServerInfo> due = new ArrayList<>();
+        for (Schedule schedule : candidates) {
+            if (due.size() >= limit) {
+                break;
+            }
+            synchronized (schedule) {
+                if (!schedule.inFlight) {
+                    schedule.inFlight = true;
+                    due.add(schedule.server);
+                }
+            }
+        }
+        return due;
+    }
+
+    /**
+     * 记录采集结果并安排下一次采集
+     *
+     * @return 下一次采集的间隔（毫秒，未含抖动）；服务器已移出调度时返回 -1
+     */
+    public long complete(String serverId, ServerStatus status, long now) {
+        Schedule schedule = schedules.get(serverId);
+        if (schedule == null) {
+            return -1;
+        }
+        synchronized (schedule) {
+            schedule.interval = nextInterval(schedule.interval, schedule.lastStatus, status);
+            if (status.getError() == null) {
+                schedule.lastStatus = status;
+            }
+            schedule.nextScrapeAt = now + jitter(schedule.interval);
+            schedule.inFlight = false;
+            return schedule.interval;
+        }
+    }
+
+    /**
+     * 当前参与调度的服务器数
+     */
+    public int size() {
+        return schedules.size();
+    }
+
+    private long nextInterval(long interval, ServerStatus previous, ServerStatus current) {
+        long min = properties.getMinInterval().toMillis();
+        long max = properties.getMaxInterval().toMillis();
+        long next;
+        if (current.getError() != null) {
+            next = properties.getInitialInterval().toMillis();
+        } else if (current.getLoadStatus() == LoadStatus.HIGH || current.getLoadStatus() == LoadStatus.CRITICAL) {
+            next = min;
+        } else if (previous != null && changed(previous, current)) {
+            next = interval / 2;
+        } else {
+            next = (long) (interval * properties.getBackoffMultiplier());
+        }
+        return Math.max(min, Math.min(max, next));
+    }
+
+    /**
+     * 内存或磁盘使用率变化超过阈值，或负载、网络状态变化
+     */
+    private boolean changed(ServerStatus previous, ServerStatus current) {
+        double threshold = properties.getChangeThreshold();
+        return Math.abs(current.getMemoryUsagePercent() - previous.getMemoryUsagePercent()) >= threshold
+                || Math.abs(current.getDiskUsagePercent() - previous.getDiskUsagePercent()) >= threshold
+                || current.getLoadStatus() != previous.getLoadStatus()
+                || current.getNetworkStatus() != previous.getNetworkStatus();
+    }
+
+    private long jitter(long interval) {
+        long range = (long) (interval * properties.getJitter());
+        return range <= 0 ? interval : interval + ThreadLocalRandom.current().nextLong(-range, range + 1);
+    }
+
+    private static class Schedule {
+        private ServerInfo server;
+        private long interval;
+        private long nextScrapeAt;
+        private boolean inFlight;
+        private ServerStatus lastStatus;
+
+        private Schedule(ServerInfo server, long interval, long nextScrapeAt) {
+            this.server = server;
+            this.interval = interval;
+            this.nextScrapeAt = nextScrapeAt;
+        }
+    }
+}
@@ -5,25 +5,43 @@ import com.nexara.server.core.os.detection.OSDetector;
 import com.nexara.server.core.os.system.product.OperatingSystem;
 import com.nexara.server.core.os.system.provider.OperatingSystemProvider;
 import com.nexara.server.polo.enums.OSType;
+import com.nexara.server.polo.model.HostFacts;
+import com.nexara.server.util.RedisUtils;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
+import static com.nexara.server.util.Constants.REDIS_HOST_FACTS_PREFIX;
+
+@Log4j2
 @Component
 public class OSFactory {
 
     private final Map<OSType, OperatingSystemProvider> providerMap = new ConcurrentHashMap<>();
 
-    public OSFactory(List<OperatingSystemProvider> providers) {
+    private final RedisUtils redisUtils;
+
+    /**
+     * 服务器探测信息的缓存时长，过期后下一次任务重新探测
+     */
+    @Value("${nexara.os.facts-ttl:6h}")
+    private Duration factsTtl;
+
+    public OSFactory(List<OperatingSystemProvider> providers, RedisUtils redisUtils) {
         for (OperatingSystemProvider provider : providers) {
             providerMap.put(provider.getSupportedType(), provider);
         }
+        this.redisUtils = redisUtils;
     }
 
     public OperatingSystem createOS(ServerConnection connection) {
-        OSType osType = OSDetector.detectOS(connection);
+        OSType osType = getHostFacts(connection).getOsType();
         OperatingSystemProvider provider = providerMap.get(osType);
 
         if (provider == null) {
@@ -32,4 +50,37 @@ public class OSFactory {
 
         return provider.create(connection);
     }
+
+    /**
+     * 读取服务器探测信息，缓存未命中时通过该连接探测并写入缓存
+     */
+    public HostFacts getHostFacts(ServerConnection connection) {
+        String serverId = connection.getServerInfo().getServerId();
+        String key = REDIS_HOST_FACTS_PREFIX + serverId;
+        try {
+            if (redisUtils.get(key) instanceof HostFacts facts) {
+                log.debug("服务器 [{}] 探测信息命中缓存: {}", serverId, facts.getOsType());
+                return facts;
+            }
+        } catch (Exception e) {
+            log.warn("读取服务器 [{}] 探测信息缓存失败，改为直接探测: {}", serverId, e.getMessage());
+        }
+
+        HostFacts facts = OSDetector.probe(connection);
+        try {
+            redisUtils.set(key, facts, factsTtl.toSeconds(), TimeUnit.SECONDS);
+        } catch (Exception e) {
+            log.warn("写入服务器 [{}] 探测信息缓存失败: {}", serverId, e.getMessage());
+        }
+        log.info("服务器 [{}] 探测完成: {} {} {}，{} 核，内存 {} 字节，包管理器 {}", serverId, facts.getOsId(),
+                facts.getOsVersion(), facts.getArch(), facts.getCpuCores(), facts.getMemoryBytes(), facts.getPackageManager());
+        return facts;
+    }
+
+    /**
+     * 服务器信息变更或重装系统后清除缓存，下次使用时重新探测
+     */
+    public void evictHostFacts(String serverId) {
+        redisUtils.delete(REDIS_HOST_FACTS_PREFIX + serverId);
+    }
 }
@@ -4,15 +4,32 @@ import com.nexara.server.core.connect.product.ServerConnection;
 import com.nexara.server.core.exception.connect.CommandExecutionException;
 import com.nexara.server.polo.enums.ConnectErrorCode;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
+@Log4j2
 @RequiredArgsConstructor
 public class ScriptExecutor {
 
+    // 批量模式下整个脚本的超时时间
+    private static final long BATCH_TIMEOUT_MILLIS = 30 * 60 * 1000L;
+    // 批量模式下写入日志的输出上限（字符数），步骤标记不受此限制
+    private static final long BATCH_MAX_LOGGED_CHARS = 4 * 1024 * 1024L;
+
+    private static final String STEP_MARKER = "__NEXARA_STEP__";
+    private static final String FAIL_MARKER = "__NEXARA_FAIL__";
+    // 排除 here-string（<<<），结束标记须以字母或下划线开头
+    private static final Pattern HEREDOC_PATTERN = Pattern.compile("(?<!<)<<(?!<)(-?)\\s*(['\"]?)([A-Za-z_]\\w*)\\2");
+    // 算术展开 $((...)) 与 ((...)) 中的 << 是左移运算
+    private static final Pattern ARITHMETIC_PATTERN = Pattern.compile("\\$?\\(\\((?:[^()]|\\([^()]*\\))*\\)\\)");
+
     private final ServerConnection connection;
 
     public void runScript(String scriptPath) throws CommandExecutionException {
@@ -47,4 +64,135 @@ public class ScriptExecutor {
             throw new RuntimeException("无法读取脚本: " + scriptPath, e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 批量执行脚本：整个脚本通过一个通道一次性发送。
+     * 每条命令前输出步骤标记，命令失败时向 stderr 输出失败标记并以该退出码结束，
+     * 据此定位出错的步骤，错误信息与逐行执行保持一致。
+     * 失败标记从异常携带的 stderr 末尾几行中解析，不依赖输出回调，因此不会因回调出错等原因丢失。
+     * 以反斜杠结尾的续行和 heredoc 会被视为同一条命令。
+     */
+    public void runScriptBatch(String scriptPath) throws CommandExecutionException {
+        List<ScriptCommand> commands;
+        try {
+            commands = parseScript(Files.readAllLines(Paths.get(scriptPath)));
+        } catch (IOException e) {
+            throw new RuntimeException("无法读取脚本: " + scriptPath, e);
+        }
+
+        if (commands.isEmpty()) {
+            return;
+        }
+
+        // 最后开始执行的命令序号，超时等没有失败标记的情况据此定位
+        int[] currentIndex = {-1};
+        long[] loggedChars = {0};
+        try {
+            // 传输层不限制输出量，否则超出上限后的步骤标记会丢失；只限制写入日志的部分
+            connection.executeCommandStreaming(buildBatchScript(commands), line -> {
+                if (line.startsWith(STEP_MARKER)) {
+                    currentIndex[0] = Integer.parseInt(line.substring(STEP_MARKER.length()).trim());
+                } else if (!line.startsWith(FAIL_MARKER)
+                        && (loggedChars[0] += line.length() + 1) <= BATCH_MAX_LOGGED_CHARS) {
+                    log.debug("[{}] {}", scriptPath, line);
+                }
+            }, 0, BATCH_TIMEOUT_MILLIS);
+            if (loggedChars[0] > BATCH_MAX_LOGGED_CHARS) {
+                log.warn("脚本输出超过日志上限({}字符)，超出部分未记录: {}", BATCH_MAX_LOGGED_CHARS, scriptPath);
+            }
+        } catch (CommandExecutionException e) {
+            int[] failure = parseFailure(e.getRawError());
+            int failedIndex = failure != null ? failure[0] : currentIndex[0];
+            if (failedIndex < 0 || failedIndex >= commands.size()) {
+                throw e;
+            }
+
+            ScriptCommand failed = commands.get(failedIndex);
+            String reason = failure != null ? "退出码: " + failure[1] : e.getRawError();
+            throw new CommandExecutionException(
+                    ConnectErrorCode.COMMAND_EXECUTION_FAILED,
+                    failed.command(),
+                    connection.getServerInfo().getServerId(),
+                    "步骤 【" + failed.step() + "】 出错，" + reason
+            );
+        }
+    }
+
+    /**
+     * 从 stderr 末尾几行中找出失败标记，返回 [失败命令序号, 退出码]，没有失败标记时返回 null
+     */
+    private static int[] parseFailure(String rawError) {
+        if (rawError == null) {
+            return null;
+        }
+        String[] lines = rawError.split("\n");
+        for (int i = lines.length - 1; i >= 0; i--) {
+            String line = lines[i].trim();
+            if (line.startsWith(FAIL_MARKER)) {
+                String[] parts = line.substring(FAIL_MARKER.length()).trim().split("\\s+");
+                return new int[]{Integer.parseInt(parts[0]), Integer.parseInt(parts[1])};
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 把脚本解析为命令列表，每条命令记录其所属的步骤说明
+     */
+    private List<ScriptCommand> parseScript(List<String> lines) {
+        List<ScriptCommand> commands = new ArrayList<>();
+        String currentStep = null;
+
+        for (int i = 0; i < lines.size(); i++) {
+            String trimmed = lines.get(i).trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+
+            if (trimmed.startsWith("#")) {
+                // 注释行作为步骤说明
+                currentStep = trimmed.substring(1).trim();
+                continue;
+            }
+
+            StringBuilder command = new StringBuilder(lines.get(i));
+            // 反斜杠续行
+            while (trimmed.endsWith("\\") && i + 1 < lines.size()) {
+                trimmed = lines.get(++i).trim();
+                command.append('\n').append(lines.get(i));
+            }
+
+            // heredoc 内容直到结束标记为止
+            Matcher heredoc = HEREDOC_PATTERN.matcher(ARITHMETIC_PATTERN.matcher(command).replaceAll(""));
+            if (heredoc.find()) {
+                boolean stripTabs = !heredoc.group(1).isEmpty();
+                String delimiter = heredoc.group(3);
+                while (i + 1 < lines.size()) {
+                    String body = lines.get(++i);
+                    command.append('\n').append(body);
+                    if ((stripTabs ? body.stripLeading() : body).equals(delimiter)) {
+                        break;
+                    }
+                }
+            }
+
+            commands.add(new ScriptCommand(currentStep, command.toString()));
+        }
+        return commands;
+    }
+
+    private String buildBatchScript(List<ScriptCommand> commands) {
+        // 通道的 stdin 不会收到 EOF，读 stdin 的命令（如 newgrp）会一直等到超时，改为从 /dev/null 读取
+        StringBuilder script = new StringBuilder("exec </dev/null\n");
+        for (int i = 0; i < commands.size(); i++) {
+            script.append("printf '\\n").append(STEP_MARKER).append(" ").append(i).append("\\n'\n");
+            script.append(commands.get(i).command()).append('\n');
+            script.append("rc=$?; if [ $rc -ne 0 ]; then printf '\\n").append(FAIL_MARKER).append(" ")
+                    .append(i).append(" %d\\n' $rc >&2; exit $rc; fi\n");
+        }
+        return script.toString();
+    }
+
+    private record ScriptCommand(String step, String command) {
+    }
+}
@@ -1,22 +1,100 @@
 package com.nexara.server.core.os.detection;
 
+import com.nexara.server.core.connect.product.CommandResult;
 import com.nexara.server.core.connect.product.ServerConnection;
 import com.nexara.server.core.exception.connect.CommandExecutionException;
 import com.nexara.server.polo.enums.OSType;
+import com.nexara.server.polo.model.HostFacts;
+
+import java.util.HashMap;
+import java.util.Map;
 
 public class OSDetector {
     private static final OSDetectionStrategy DEFAULT_STRATEGY = new LinuxDetectionStrategy();
 
+    private static final long PROBE_TIMEOUT_MILLIS = 15000L;
+
+    /**
+     * 一条命令取回全部探测信息：自定义字段以 nexara_ 为前缀，其余为 os-release 原文。
+     * 非 POSIX shell（Windows cmd）执行不了该脚本，输出中不会出现标记行。
+     */
+    private static final String PROBE_COMMAND = String.join("; ",
+            "echo nexara_probe=1",
+            "echo nexara_kernel=$(uname -r)",
+            "echo nexara_arch=$(uname -m)",
+            "cat /etc/os-release 2>/dev/null || cat /etc/*-release 2>/dev/null",
+            "echo nexara_cpu_cores=$(nproc 2>/dev/null || getconf _NPROCESSORS_ONLN)",
+            "echo nexara_mem_kb=$(awk '/^MemTotal:/{print $2}' /proc/meminfo 2>/dev/null)",
+            "for pm in apt-get dnf yum zypper apk pacman; do if command -v $pm >/dev/null 2>&1; then echo nexara_pkg_manager=$pm; break; fi; done",
+            "if [ -d /run/systemd/system ]; then echo nexara_systemd=1; else echo nexara_systemd=0; fi");
+
     public static OSType detectOS(ServerConnection connection) throws CommandExecutionException {
-        String systemType = connection.executeCommand("uname -s || ver");
-        OSDetectionStrategy strategy;
-        if (systemType.contains("Windows")) {
-            strategy = new WindowsDetectionStrategy();
-        } else {
-            strategy = DEFAULT_STRATEGY;
+        return probe(connection).getOsType();
+    }
+
+    /**
+     * 探测操作系统、内核、架构、包管理器、systemd、CPU 核数与内存。
+     * Linux 上只需一次往返；探测脚本无法执行时按 Windows 处理，再执行一次 ver 确认。
+     */
+    public static HostFacts probe(ServerConnection connection) throws CommandExecutionException {
+        String serverId = connection.getServerInfo().getServerId();
+        CommandResult result = connection.runCommand(PROBE_COMMAND, PROBE_TIMEOUT_MILLIS);
+        if (!result.stdout().contains("nexara_probe=1")) {
+            WindowsDetectionStrategy strategy = new WindowsDetectionStrategy();
+            String output = connection.executeCommand(strategy.getDetectionCommand());
+            return HostFacts.builder()
+                    .osType(strategy.parseOutput(output, serverId))
+                    .detectTime(System.currentTimeMillis())
+                    .build();
+        }
+
+        Map<String, String> values = parseKeyValues(result.stdout());
+        Long cpuCores = parseNumber(values.get("nexara_cpu_cores"));
+        Long memoryKb = parseNumber(values.get("nexara_mem_kb"));
+        return HostFacts.builder()
+                .osType(DEFAULT_STRATEGY.parseOutput(result.stdout(), serverId))
+                .osId(values.get("ID"))
+                .osVersion(values.get("VERSION_ID"))
+                .kernel(values.get("nexara_kernel"))
+                .arch(values.get("nexara_arch"))
+                .packageManager(values.get("nexara_pkg_manager"))
+                .systemd("1".equals(values.get("nexara_systemd")))
+                .cpuCores(cpuCores != null ? cpuCores.intValue() : null)
+                .memoryBytes(memoryKb != null ? memoryKb * 1024 : null)
+                .detectTime(System.currentTimeMillis())
+                .build();
+    }
+
+    /**
+     * 解析 KEY=VALUE 行，去掉值两侧的引号；空值视为不存在
+     */
+    private static Map<String, String> parseKeyValues(String output) {
+        Map<String, String> values = new HashMap<>();
+        for (String line : output.split("\n")) {
+            int index = line.indexOf('=');
+            if (index <= 0) {
+                continue;
+            }
+            String value = line.substring(index + 1).trim();
+            if (value.length() >= 2 && (value.startsWith("\"") || value.startsWith("'"))
+                    && value.charAt(value.length() - 1) == value.charAt(0)) {
+                value = value.substring(1, value.length() - 1);
+            }
+            if (!value.isEmpty()) {
+                values.putIfAbsent(line.substring(0, index).trim(), value);
+            }
         }
+        return values;
+    }
 
-        String output = connection.executeCommand(strategy.getDetectionCommand());
-        return strategy.parseOutput(output, connection.getServerInfo().getServerId());
+    private static Long parseNumber(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
     }
-}
\ No newline at end of file
+}
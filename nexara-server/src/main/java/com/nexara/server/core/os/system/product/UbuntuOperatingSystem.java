@@ -24,7 +24,7 @@ public class UbuntuOperatingSystem implements OperatingSystem {
         String checkScript = basePath + "/check.cmds";
         if (Files.exists(Paths.get(checkScript))) {
             try {
-                executor.runScript(checkScript);
+                executor.runScriptBatch(checkScript);
                 log.info("{} 已安装，跳过安装", serviceType);
                 return;
             } catch (CommandExecutionException e) {
@@ -37,7 +37,7 @@ public class UbuntuOperatingSystem implements OperatingSystem {
             throw new RuntimeException("安装脚本不存在: " + installScript);
         }
 
-        executor.runScript(installScript);
+        executor.runScriptBatch(installScript);
         log.info("{} 安装完成", serviceType);
     }
 
@@ -1,21 +1,32 @@
 package com.nexara.server.core.task;
 
+import com.nexara.server.config.MonitorProperties;
 import com.nexara.server.mapper.ServerInfoMapper;
-import com.nexara.server.mapper.ServerStatusMapper;
 import com.nexara.server.polo.enums.LoadStatus;
 import com.nexara.server.polo.enums.NetworkStatus;
 import com.nexara.server.polo.model.ServerInfo;
 import com.nexara.server.polo.model.ServerStatus;
 import com.nexara.server.util.RedisUtils;
 import com.nexara.server.core.manager.ServerMonitorManager;
+import com.nexara.server.core.manager.ServerStatusBatchWriter;
+import com.nexara.server.core.manager.ServerStatusRollupManager;
+import com.nexara.server.core.monitor.ScrapeScheduler;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
 
 import static com.nexara.server.util.Constants.REDIS_SERVER_STATUS_PREFIX;
 
@@ -25,98 +36,162 @@ import static com.nexara.server.util.Constants.REDIS_SERVER_STATUS_PREFIX;
 public class ServerMonitorTask {
 
     private final ServerInfoMapper serverInfoMapper;
-    private final ServerStatusMapper serverStatusMapper;
+    private final ServerStatusBatchWriter statusWriter;
     private final ServerMonitorManager serverMonitorManager;
     private final RedisUtils redisUtils;
+    private final ScrapeScheduler scrapeScheduler;
+    private final MonitorProperties monitorProperties;
+    private final ServerStatusRollupManager rollupManager;
+
+    // 每台服务器的采集与保存在独立的虚拟线程上进行，并发数由 permits 限制
+    private final ExecutorService monitorExecutor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("server-monitor-", 0).factory());
+    private Semaphore permits;
+
+    @PostConstruct
+    public void init() {
+        // 本轮期限短于单次采集的超时时，正常但较慢的采集也会被当作过期
+        Duration scrapeTimeout = monitorProperties.getConnectTimeout().plus(monitorProperties.getReadTimeout());
+        if (monitorProperties.getCycleDeadline().compareTo(scrapeTimeout) < 0) {
+            throw new IllegalStateException("nexara.monitor.cycle-deadline(" + monitorProperties.getCycleDeadline()
+                    + ") 不能小于 connect-timeout + read-timeout(" + scrapeTimeout + ")");
+        }
+        permits = new Semaphore(monitorProperties.getMaxConcurrency());
+    }
 
     // redis 存储的是最新的服务器信息（无限时间） sqlite 存储的是每次监控的时候的服务器信息 -> 提供服务器状态的可视化页面
 
 
     /**
-     * 服务器监控 - 每半小时整点执行一次（如 19:00, 19:30）
+     * 同步需要监控的服务器列表 - 每分钟一次，新增服务器在同步后按各自的时间开始采集
      */
-    @Scheduled(cron = "0 0,30 * * * ?")
-    public void regularMonitor() {
-        log.info("开启服务器监控任务");
-        monitorServers();
+    @Scheduled(fixedDelay = 60_000)
+    public void refreshServers() {
+        List<ServerInfo> allServerInfo = serverInfoMapper.findAllServerInfo();
+        if (allServerInfo.isEmpty() && scrapeScheduler.size() > 0) {
+            log.warn("未找到任何服务器配置信息");
+        }
+        scrapeScheduler.sync(allServerInfo, System.currentTimeMillis());
     }
 
     /**
-     * 监控服务器核心方法
-     *
+     * 发起已到采集时间的服务器监控 - 每秒检查一次，每台服务器的间隔由 {@link ScrapeScheduler} 自适应调整。
+     * 一次检查取出的服务器为一轮，每台服务器在虚拟线程上采集并保存结果，同时进行的采集数不超过 maxConcurrency；
+     * 超过本轮期限仍未完成的服务器标记为过期，不拖延本轮的结束。
      */
-    private void monitorServers() {
-        List<ServerInfo> allServerInfo = serverInfoMapper.findAllServerInfo();
-
-        if (allServerInfo.isEmpty()) {
-            log.warn("未找到任何服务器配置信息");
+    @Scheduled(fixedDelay = 1000)
+    public void dispatchDueScrapes() {
+        int available = permits.availablePermits();
+        if (available == 0) {
+            log.debug("采集并发数已达上限 {}，推迟到下一次检查", monitorProperties.getMaxConcurrency());
+            return;
+        }
+        List<ServerInfo> due = scrapeScheduler.pollDue(System.currentTimeMillis(), available);
+        if (due.isEmpty()) {
             return;
         }
 
-        log.info("发现 {} 台服务器需要监控", allServerInfo.size());
-
-        // 异步并行监控所有服务器
-        List<CompletableFuture<Void>> futures = allServerInfo.stream()
-                .map(this::monitorServerAsync)
+        long start = System.nanoTime();
+        long deadline = System.currentTimeMillis() + monitorProperties.getCycleDeadline().toMillis();
+        permits.acquireUninterruptibly(due.size());
+        List<CompletableFuture<ScrapeOutcome>> outcomes = due.stream()
+                .map(serverInfo -> CompletableFuture.supplyAsync(() -> scrape(serverInfo, deadline), monitorExecutor))
                 .toList();
 
-        // 等待所有监控任务完成
-        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
-                .exceptionally(ex -> {
-                    log.error("监控任务执行异常", ex);
-                    return null;
-                })
-                .join();
+        CompletableFuture.allOf(outcomes.toArray(new CompletableFuture[0])).thenRun(() -> {
+            Map<ScrapeOutcome, Long> counts = outcomes.stream()
+                    .collect(Collectors.groupingBy(CompletableFuture::join, () -> new EnumMap<>(ScrapeOutcome.class),
+                            Collectors.counting()));
+            long stale = counts.getOrDefault(ScrapeOutcome.STALE, 0L);
+            String summary = "本轮采集 {} 台，成功 {}，失败 {}，过期 {}，耗时 {} ms";
+            Object[] args = {due.size(), counts.getOrDefault(ScrapeOutcome.SUCCESS, 0L),
+                    counts.getOrDefault(ScrapeOutcome.FAILED, 0L), stale, (System.nanoTime() - start) / 1_000_000};
+            if (stale > 0) {
+                log.warn(summary, args);
+            } else {
+                log.debug(summary, args);
+            }
+        });
+    }
 
-        log.info("服务器监控任务完成");
+    /**
+     * 采集单台服务器并保存结果，最多进行到本轮期限。
+     * 期限交给采集客户端，到期时请求已被取消，因此许可在请求真正结束后才释放，maxConcurrency 限制的是进行中的请求数
+     */
+    private ScrapeOutcome scrape(ServerInfo serverInfo, long deadline) {
+        ServerStatus serverMetrics;
+        ScrapeOutcome outcome;
+        try {
+            serverMetrics = serverMonitorManager.getServerMetricsAsync(serverInfo.getHost(), deadline).join();
+            if (serverMetrics.getError() != null && System.currentTimeMillis() >= deadline) {
+                markStale(serverInfo);
+                serverMetrics.setError("采集未在本轮期限内完成");
+                outcome = ScrapeOutcome.STALE;
+            } else {
+                handleMetrics(serverInfo, serverMetrics);
+                outcome = serverMetrics.getError() == null ? ScrapeOutcome.SUCCESS : ScrapeOutcome.FAILED;
+            }
+        } catch (Exception e) {
+            log.error("监控服务器 {} 时发生未预期异常", serverInfo.getHost(), e);
+            serverMetrics = new ServerStatus();
+            serverMetrics.setError(e.getMessage());
+            outcome = ScrapeOutcome.FAILED;
+        } finally {
+            permits.release();
+        }
+
+        long interval = scrapeScheduler.complete(serverInfo.getServerId(), serverMetrics, System.currentTimeMillis());
+        log.debug("服务器 {} 下次采集间隔 {} 秒", serverInfo.getHost(), interval / 1000);
+        return outcome;
     }
 
     /**
-     * 异步监控单个服务器
+     * 保留 Redis 中上一次的指标，但标记为过期，选择服务器时不再当作最新数据
      */
-    @Async("taskExecutor")
-    public CompletableFuture<Void> monitorServerAsync(ServerInfo serverInfo) {
-        return CompletableFuture.runAsync(() -> {
-            try {
-                monitorSingleServer(serverInfo);
-            } catch (Exception e) {
-                log.error("监控服务器 {} 时发生异常", serverInfo.getHost(), e);
+    private void markStale(ServerInfo serverInfo) {
+        String key = REDIS_SERVER_STATUS_PREFIX + serverInfo.getServerId();
+        try {
+            if (redisUtils.get(key) instanceof ServerStatus previous && !Boolean.TRUE.equals(previous.getStale())) {
+                previous.setStale(true);
+                redisUtils.set(key, previous);
             }
-        });
+            log.warn("服务器 {} 采集超过本轮期限，已标记为过期", serverInfo.getHost());
+        } catch (Exception e) {
+            log.error("标记服务器 {} 监控数据过期失败", serverInfo.getHost(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        monitorExecutor.shutdownNow();
     }
 
     /**
-     * 监控单个服务器
+     * 处理单个服务器的采集结果
      */
-    private void monitorSingleServer(ServerInfo serverInfo) {
+    private void handleMetrics(ServerInfo serverInfo, ServerStatus serverMetrics) {
         String serverId = serverInfo.getServerId();
         String host = serverInfo.getHost();
         String key = REDIS_SERVER_STATUS_PREFIX + serverId;
 
         try {
-            log.debug("开始监控服务器: {} ({})", host, serverId);
-
-            // 获取监控数据
-            ServerStatus serverMetrics = serverMonitorManager.getServerMetrics(host);
-
             if (serverMetrics.getError() != null) {
                 log.warn("服务器 {} 监控失败: {}", host, serverMetrics.getError());
                 // 即使失败也记录到数据库，标记错误状态
-                handleFailedMonitor(serverInfo);
+                handleFailedMonitor(serverInfo, serverMetrics.getError());
                 return;
             }
 
             // 设置服务器ID
             serverMetrics.setServerId(serverId);
 
-            System.out.println(serverMetrics);
             // 存储到数据库
             saveToDatabase(serverMetrics);
 
             // 更新Redis缓存
             updateRedisCache(key, serverMetrics);
 
-            log.info("服务器 {} 监控完成 - CPU: {}核, 内存: {}%, 硬盘: {}% , 网络: {}",
+            log.debug("服务器 {} 监控完成 - CPU: {}核, 内存: {}%, 硬盘: {}% , 网络: {}",
                     host,
                     serverMetrics.getCpuCores(),
                     serverMetrics.getMemoryUsagePercent(),
@@ -131,16 +206,17 @@ public class ServerMonitorTask {
     /**
      * 处理监控失败的情况
      */
-    private void handleFailedMonitor(ServerInfo serverInfo) {
+    private void handleFailedMonitor(ServerInfo serverInfo, String error) {
         try {
             ServerStatus errorStatus = new ServerStatus();
             errorStatus.setServerId(serverInfo.getServerId());
             errorStatus.setNetworkStatus(NetworkStatus.UNSTABLE);
             errorStatus.setLoadStatus(LoadStatus.ERROR);
+            errorStatus.setError(error);
             errorStatus.setLastUpdated(new java.util.Date());
 
             // 保存错误状态到数据库
-            serverStatusMapper.insert(errorStatus);
+            statusWriter.submit(toErrorRecord(errorStatus));
 
             // 更新Redis缓存
             String key = REDIS_SERVER_STATUS_PREFIX + serverInfo.getServerId();
@@ -152,14 +228,29 @@ public class ServerMonitorTask {
     }
 
     /**
-     * 保存监控数据到数据库
+     * 数据库中的指标列非空且 CPU 核心数必须大于 0，失败记录的指标填入占位值才能写入；
+     * 聚合时按 load_status 为 ERROR 识别失败记录，占位值不参与统计
+     */
+    private static ServerStatus toErrorRecord(ServerStatus errorStatus) {
+        ServerStatus record = new ServerStatus();
+        record.setServerId(errorStatus.getServerId());
+        record.setCpuCores(1);
+        record.setMemorySizeGb(0f);
+        record.setMemoryUsagePercent(0f);
+        record.setDiskSizeGb(0f);
+        record.setDiskUsagePercent(0f);
+        record.setNetworkStatus(errorStatus.getNetworkStatus());
+        record.setLoadStatus(errorStatus.getLoadStatus());
+        record.setError(errorStatus.getError());
+        record.setLastUpdated(errorStatus.getLastUpdated());
+        return record;
+    }
+
+    /**
+     * 保存监控数据到数据库，由 {@link ServerStatusBatchWriter} 异步批量写入
      */
     private void saveToDatabase(ServerStatus serverMetrics) {
-        try {
-            serverStatusMapper.insert(serverMetrics);
-        } catch (Exception e) {
-            log.error("保存服务器 {} 监控数据到数据库失败", serverMetrics.getServerId(), e);
-        }
+        statusWriter.submit(serverMetrics);
     }
 
     /**
@@ -173,6 +264,18 @@ public class ServerMonitorTask {
         }
     }
 
+    /**
+     * 聚合监控历史 - 每分钟执行一次，只处理上次之后的新数据
+     */
+    @Scheduled(fixedDelay = 60_000)
+    public void rollupHistory() {
+        try {
+            rollupManager.rollup();
+        } catch (Exception e) {
+            log.error("聚合监控历史失败", e);
+        }
+    }
+
     /**
      * 清理过期的监控数据 - 每天凌晨2点执行
      */
@@ -180,12 +283,13 @@ public class ServerMonitorTask {
     public void cleanupOldData() {
         log.info("开始清理过期监控数据");
         try {
-            // 保留最近7天的数据
-            int deletedRows = serverStatusMapper.deleteOldData(7);
-            log.info("清理完成，删除 {} 条过期记录", deletedRows);
+            rollupManager.cleanup();
         } catch (Exception e) {
             log.error("清理监控数据失败", e);
         }
     }
 
-}
\ No newline at end of file
+    private enum ScrapeOutcome {
+        SUCCESS, FAILED, STALE
+    }
+}
@@ -0,0 +1,60 @@
+package com.nexara.server.mapper;
+
+import com.nexara.server.polo.model.ServerStatusRollup;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * 监控历史聚合表（server_status_1m / 1h / 1d）。
+ * 表名只取自 {@link com.nexara.server.polo.enums.RollupResolution}，不接受外部输入
+ */
+@Mapper
+@Repository
+public interface ServerStatusRollupMapper {
+
+    /**
+     * 查询某粒度已聚合到的时间点，未聚合过返回 null
+     */
+    Long selectWatermark(@Param("resolution") String resolution);
+
+    /**
+     * 更新某粒度已聚合到的时间点
+     */
+    int upsertWatermark(@Param("resolution") String resolution, @Param("watermark") long watermark);
+
+    /**
+     * 将 [from, to) 内的原始采集记录按分钟聚合写入 server_status_1m
+     */
+    int rollupRaw(@Param("from") long from, @Param("to") long to);
+
+    /**
+     * 将来源表 [from, to) 内的桶按 bucketMillis 重新分桶，合并写入目标表
+     */
+    int rollup(@Param("source") String source, @Param("target") String target,
+               @Param("bucketMillis") long bucketMillis, @Param("from") long from, @Param("to") long to);
+
+    /**
+     * 删除聚合表中早于 before 的桶
+     */
+    int deleteBefore(@Param("table") String table, @Param("before") long before);
+
+    /**
+     * 删除早于 before 的原始采集记录
+     */
+    int deleteRawBefore(@Param("before") long before);
+
+    /**
+     * 查询聚合表中某服务器 [from, to) 内的桶
+     */
+    List<ServerStatusRollup> selectRange(@Param("table") String table, @Param("serverId") String serverId,
+                                         @Param("from") long from, @Param("to") long to);
+
+    /**
+     * 查询某服务器 [from, to) 内的原始采集记录，按聚合桶的形式返回
+     */
+    List<ServerStatusRollup> selectRawRange(@Param("serverId") String serverId,
+                                            @Param("from") long from, @Param("to") long to);
+}
@@ -5,5 +5,9 @@ public enum ProtocolType {
     SFTP,
     HTTP,
     RDP,
-    VNC;
+    VNC,
+    /**
+     * nexara 所在主机，命令与文件操作直接在本机执行
+     */
+    LOCAL;
 }
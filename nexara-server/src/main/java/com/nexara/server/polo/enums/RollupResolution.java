@@ -0,0 +1,36 @@
+package com.nexara.server.polo.enums;
+
+import lombok.Getter;
+
+/**
+ * 监控历史的存储粒度，由细到粗排列；每一级由上一级聚合而来
+ */
+@Getter
+public enum RollupResolution {
+    RAW("server_status", 0L),
+    MINUTE("server_status_1m", 60_000L),
+    HOUR("server_status_1h", 3_600_000L),
+    DAY("server_status_1d", 86_400_000L);
+
+    /**
+     * 数据表名
+     */
+    private final String table;
+
+    /**
+     * 桶宽（毫秒），原始数据为 0
+     */
+    private final long bucketMillis;
+
+    RollupResolution(String table, long bucketMillis) {
+        this.table = table;
+        this.bucketMillis = bucketMillis;
+    }
+
+    /**
+     * 聚合来源的上一级粒度
+     */
+    public RollupResolution source() {
+        return values()[ordinal() - 1];
+    }
+}
@@ -0,0 +1,34 @@
+package com.nexara.server.polo.model;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 批量执行命令的请求。
+ * 选择服务器：指定 serverIds 时只在这些服务器上执行；否则按 serverPattern 匹配 serverId 或 host；
+ * 在全部服务器上执行必须显式指定 all=true，未指定任何选择条件或选中结果为空时拒绝执行。
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class FleetCommandRequest {
+    @NotBlank(message = "command cannot be blank")
+    private String command;
+
+    private List<String> serverIds;
+
+    // 正则表达式
+    private String serverPattern;
+
+    // 选中全部服务器
+    private Boolean all;
+
+    // 单台服务器的命令超时时间（秒）
+    private Integer timeoutSeconds;
+}
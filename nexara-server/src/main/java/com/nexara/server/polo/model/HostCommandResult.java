@@ -0,0 +1,26 @@
+package com.nexara.server.polo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 批量执行命令时单台服务器的结果
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class HostCommandResult {
+    private String serverId;
+    private String host;
+    private boolean success;
+    // 命令未能执行（如连接失败、超时）时为空
+    private Integer exitCode;
+    private String stdout;
+    private String stderr;
+    // 连接或执行异常信息
+    private String error;
+    private long durationMillis;
+}
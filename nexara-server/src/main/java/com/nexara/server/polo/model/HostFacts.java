@@ -0,0 +1,30 @@
+package com.nexara.server.polo.model;
+
+import com.nexara.server.polo.enums.OSType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 一次探测得到的服务器基础信息，按服务器缓存
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class HostFacts {
+    private OSType osType;
+    // /etc/os-release 中的 ID 与 VERSION_ID，如 ubuntu / 22.04
+    private String osId;
+    private String osVersion;
+    private String kernel;
+    // uname -m，如 x86_64 / aarch64
+    private String arch;
+    // 首个可用的包管理器：apt-get / dnf / yum / zypper / apk / pacman，未找到为 null
+    private String packageManager;
+    private Boolean systemd;
+    private Integer cpuCores;
+    private Long memoryBytes;
+    private Long detectTime;
+}
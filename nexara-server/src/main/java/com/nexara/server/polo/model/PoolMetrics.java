@@ -0,0 +1,29 @@
+package com.nexara.server.polo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 单个连接池的运行指标
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class PoolMetrics {
+    private String poolKey;
+    // 已借出的连接数
+    private int active;
+    // 池中空闲的连接数
+    private int idle;
+    // 正在阻塞等待借出的线程数
+    private int waiters;
+    // 共享会话上的使用方总数
+    private int borrowers;
+    private long meanBorrowWaitMillis;
+    private long maxBorrowWaitMillis;
+    private long createdCount;
+    private long destroyedCount;
+}
@@ -0,0 +1,19 @@
+package com.nexara.server.polo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 远程缓存中的一个文件对象，按内容 SHA-256 寻址
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class RemoteArtifact {
+    private String sha256;
+    private Long size;
+    private Long lastAccessTime;
+}
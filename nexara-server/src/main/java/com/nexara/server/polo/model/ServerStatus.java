@@ -76,5 +76,9 @@ public class ServerStatus implements Serializable {
      * 错误信息
      */
     private String error;
+    /**
+     * 最近一次采集未在期限内完成，指标仍为上一次采集的值
+     */
+    private Boolean stale;
 
 }
@@ -0,0 +1,52 @@
+package com.nexara.server.polo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 一个时间桶内的服务器监控聚合值，对应 server_status_1m / 1h / 1d 表；
+ * 查询原始数据时每条采集记录即一个桶，min/avg/max 相同
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ServerStatusRollup {
+
+    private String serverId;
+
+    /**
+     * 桶起始时间（毫秒时间戳，按 UTC 对齐）
+     */
+    private Long bucketStart;
+
+    /**
+     * 成功采集数
+     */
+    private Integer samples;
+
+    /**
+     * 采集失败数
+     */
+    private Integer errorCount;
+
+    private Integer cpuCores;
+
+    private Float memorySizeGb;
+
+    private Float diskSizeGb;
+
+    private Float memoryUsageMin;
+
+    private Float memoryUsageAvg;
+
+    private Float memoryUsageMax;
+
+    private Float diskUsageMin;
+
+    private Float diskUsageAvg;
+
+    private Float diskUsageMax;
+}
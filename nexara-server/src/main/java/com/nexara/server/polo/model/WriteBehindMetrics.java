@@ -0,0 +1,30 @@
+package com.nexara.server.polo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 监控数据异步批量写入的运行指标
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class WriteBehindMetrics {
+    // 队列中等待写入的记录数
+    private int queueDepth;
+    private int queueCapacity;
+    // 累计写入的记录数
+    private long writtenCount;
+    // 队列已满或写入失败而丢弃的记录数
+    private long droppedCount;
+    // 累计提交的批次数
+    private long flushCount;
+    private int lastBatchSize;
+    // 单批从开始写入到提交完成的耗时
+    private long lastFlushMillis;
+    private long meanFlushMillis;
+    private long maxFlushMillis;
+}
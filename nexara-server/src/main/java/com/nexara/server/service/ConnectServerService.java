@@ -2,7 +2,7 @@ package com.nexara.server.service;
 
 import com.jcraft.jsch.JSchException;
 import com.nexara.server.core.connect.ConnectionFactory;
-import com.nexara.server.core.connect.product.ServerConnection;
+import com.nexara.server.core.connect.ConnectionLease;
 import com.nexara.server.core.exception.connect.ConnectionException;
 import com.nexara.server.mapper.ServerInfoMapper;
 import com.nexara.server.polo.model.ServerInfo;
@@ -29,9 +29,8 @@ public class ConnectServerService {
     }
 
     public AjaxResult testConnectServer(ServerInfo serverInfo) {
-        try {
-            ServerConnection connection = connectionFactory.createConnection(serverInfo);
-            return connection.isConnected() ? AjaxResult.success("成功连接服务器！") : AjaxResult.error("连接失败，请检查服务器信息！");
+        try (ConnectionLease lease = connectionFactory.acquire(serverInfo)) {
+            return lease.getConnection().isConnected() ? AjaxResult.success("成功连接服务器！") : AjaxResult.error("连接失败，请检查服务器信息！");
         } catch (ConnectionException e) {
             log.error("连接错误：{}", e.getMessage());
             return AjaxResult.error("服务器连接失败：" + e.getMessage());
@@ -40,4 +39,12 @@ public class ConnectServerService {
             return AjaxResult.error("发生未知错误，请重试！");
         }
     }
+
+    public AjaxResult getPoolMetrics() {
+        return AjaxResult.success(connectionFactory.getPoolMetrics());
+    }
+
+    public AjaxResult getOpenCircuits() {
+        return AjaxResult.success(connectionFactory.getOpenCircuits());
+    }
 }
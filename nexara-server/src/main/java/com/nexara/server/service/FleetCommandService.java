@@ -0,0 +1,95 @@
+package com.nexara.server.service;
+
+import com.nexara.server.core.manager.FleetCommandManager;
+import com.nexara.server.polo.model.FleetCommandRequest;
+import com.nexara.server.polo.model.HostCommandResult;
+import com.nexara.server.polo.model.ServerInfo;
+import com.nexara.server.util.AjaxResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Service
+@Log4j2
+@RequiredArgsConstructor
+public class FleetCommandService {
+
+    // SSE 连接的最长保持时间
+    private static final long STREAM_TIMEOUT_MILLIS = 30 * 60 * 1000L;
+
+    private final FleetCommandManager fleetCommandManager;
+    private final ExecutorService virtualThreadExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * 以 SSE 推送结果：每台服务器完成时推送一条 result 事件，全部完成后推送 done 事件
+     */
+    public SseEmitter executeStreaming(FleetCommandRequest request) {
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MILLIS);
+        List<ServerInfo> servers;
+        try {
+            servers = fleetCommandManager.selectServers(request);
+        } catch (IllegalArgumentException e) {
+            // 选择条件不合法时推送一条 error 事件后结束
+            try {
+                emitter.send(SseEmitter.event().name("error").data(e.getMessage()));
+                emitter.complete();
+            } catch (IOException ex) {
+                emitter.completeWithError(ex);
+            }
+            return emitter;
+        }
+
+        virtualThreadExecutor.execute(() -> {
+            try {
+                long start = System.currentTimeMillis();
+                List<HostCommandResult> results = fleetCommandManager.execute(servers, request, result -> {
+                    try {
+                        emitter.send(SseEmitter.event().name("result").data(result));
+                    } catch (IOException | IllegalStateException e) {
+                        // 客户端断开后继续执行，只是不再推送
+                        log.debug("批量命令结果推送失败: {}", e.getMessage());
+                    }
+                });
+                emitter.send(SseEmitter.event().name("done").data(summarize(results, start)));
+                emitter.complete();
+            } catch (Exception e) {
+                log.error("批量命令执行失败", e);
+                emitter.completeWithError(e);
+            }
+        });
+        return emitter;
+    }
+
+    /**
+     * 同步执行，全部完成后一次性返回
+     */
+    public AjaxResult execute(FleetCommandRequest request) {
+        List<ServerInfo> servers;
+        try {
+            servers = fleetCommandManager.selectServers(request);
+        } catch (IllegalArgumentException e) {
+            return AjaxResult.error(e.getMessage());
+        }
+        long start = System.currentTimeMillis();
+        List<HostCommandResult> results = fleetCommandManager.execute(servers, request, result -> {});
+        return AjaxResult.success(summarize(results, start)).put("results", results);
+    }
+
+    private Map<String, Object> summarize(List<HostCommandResult> results, long start) {
+        long succeeded = results.stream().filter(HostCommandResult::isSuccess).count();
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("total", results.size());
+        summary.put("succeeded", succeeded);
+        summary.put("failed", results.size() - succeeded);
+        summary.put("durationMillis", System.currentTimeMillis() - start);
+        return summary;
+    }
+}
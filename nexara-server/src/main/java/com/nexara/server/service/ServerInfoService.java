@@ -1,5 +1,6 @@
 package com.nexara.server.service;
 
+import com.nexara.server.core.os.OSFactory;
 import com.nexara.server.mapper.ServerInfoMapper;
 import com.nexara.server.polo.model.ServerInfo;
 import com.nexara.server.util.AjaxResult;
@@ -13,6 +14,7 @@ import org.springframework.stereotype.Service;
 @Log4j2
 public class ServerInfoService {
     private final ServerInfoMapper serverInfoMapper;
+    private final OSFactory osFactory;
 
     public ServerInfo getServerInfoByServerId(String serverId) {
         return serverInfoMapper.findByServerId(serverId);
@@ -27,10 +29,16 @@ public class ServerInfoService {
 
     public void deleteServerInfoByServerId(String serverId) {
         serverInfoMapper.deleteByServerId(serverId);
+        osFactory.evictHostFacts(serverId);
     }
 
     public AjaxResult updateServerInfo(ServerInfo serverInfo) {
         ServerInfo existingServer = serverInfoMapper.findByServerId(serverInfo.getServerId());
-        return existingServer == null ? AjaxResult.error("服务器信息不存在，无法更新！") : AjaxResult.success().put("data", serverInfoMapper.update(serverInfo));
+        if (existingServer == null) {
+            return AjaxResult.error("服务器信息不存在，无法更新！");
+        }
+        // 地址或协议可能已变化，缓存的探测信息不再可信
+        osFactory.evictHostFacts(serverInfo.getServerId());
+        return AjaxResult.success().put("data", serverInfoMapper.update(serverInfo));
     }
 }
@@ -0,0 +1,35 @@
+package com.nexara.server.service;
+
+import com.nexara.server.core.manager.ServerStatusBatchWriter;
+import com.nexara.server.core.manager.ServerStatusRollupManager;
+import com.nexara.server.util.AjaxResult;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+@Service
+@RequiredArgsConstructor
+public class ServerStatusService {
+
+    private final ServerStatusRollupManager rollupManager;
+    private final ServerStatusBatchWriter statusWriter;
+
+    /**
+     * 查询 [from, to) 内的监控历史，按 step 自动选择聚合粒度
+     */
+    public AjaxResult getStatusHistory(String serverId, long from, long to, long stepSeconds) {
+        if (from >= to) {
+            return AjaxResult.error("查询起始时间必须早于结束时间！");
+        }
+        if (stepSeconds <= 0) {
+            return AjaxResult.error("查询步长必须大于 0！");
+        }
+        return AjaxResult.success().put("data",
+                rollupManager.queryHistory(serverId, from, to, Duration.ofSeconds(stepSeconds)));
+    }
+
+    public AjaxResult getWriterMetrics() {
+        return AjaxResult.success(statusWriter.getMetrics());
+    }
+}
@@ -7,6 +7,9 @@ public final class Constants {
     // 监控服务器状态 Redis 前缀
     public static final String REDIS_SERVER_STATUS_PREFIX = "server:status:";
 
+    // 服务器探测信息（操作系统、架构、资源等）Redis 前缀
+    public static final String REDIS_HOST_FACTS_PREFIX = "server:facts:";
+
     // 远程上传文件服务器状态
     public static final String REMOTE_UPLOAD_PREFIX = "~/nexara/";
 
@@ -0,0 +1,50 @@
+package com.nexara.server.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * 文件摘要工具类
+ */
+public final class HashUtils {
+
+    private HashUtils() {}
+
+    /**
+     * 计算文件 SHA-256（十六进制小写）
+     */
+    public static String sha256Hex(Path filePath) throws IOException {
+        return sha256Hex(filePath, Long.MAX_VALUE);
+    }
+
+    /**
+     * 计算文件前 length 个字节的 SHA-256（十六进制小写）
+     */
+    public static String sha256Hex(Path filePath, long length) throws IOException {
+        MessageDigest digest = newSha256();
+        try (InputStream input = Files.newInputStream(filePath)) {
+            byte[] buffer = new byte[8192];
+            long remaining = length;
+            int bytesRead;
+            while (remaining > 0
+                    && (bytesRead = input.read(buffer, 0, (int) Math.min(buffer.length, remaining))) != -1) {
+                digest.update(buffer, 0, bytesRead);
+                remaining -= bytesRead;
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("当前 JVM 不支持 SHA-256", e);
+        }
+    }
+}
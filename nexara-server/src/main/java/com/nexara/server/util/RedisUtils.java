@@ -91,6 +91,13 @@ public class RedisUtils {
         return redisTemplate.opsForHash().entries(key);
     }
 
+    /**
+     * Hash 结构 - 删除字段
+     */
+    public Long hDelete(String key, Object... hashKeys) {
+        return redisTemplate.opsForHash().delete(key, hashKeys);
+    }
+
     /**
      * List 结构 - 左侧插入（LPUSH）
      */
@@ -0,0 +1,16 @@
+package com.nexara.server.util;
+
+/**
+ * 远程 shell 命令拼接工具类
+ */
+public final class ShellUtils {
+
+    private ShellUtils() {}
+
+    /**
+     * 单引号转义，防止路径中的特殊字符被 shell 解释
+     */
+    public static String quote(String value) {
+        return "'" + value.replace("'", "'\\''") + "'";
+    }
+}
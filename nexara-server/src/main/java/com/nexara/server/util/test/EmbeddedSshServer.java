@@ -0,0 +1,69 @@
+package com.nexara.server.util.test;
+
+import com.nexara.server.polo.enums.ProtocolType;
+import com.nexara.server.polo.model.ServerInfo;
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+import org.apache.sshd.server.SshServer;
+import org.apache.sshd.server.keyprovider.SimpleGeneratorHostKeyProvider;
+import org.apache.sshd.server.shell.ProcessShellFactory;
+import org.apache.sshd.sftp.server.SftpSubsystemFactory;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 进程内 SSH/SFTP 服务，监听 127.0.0.1 的随机端口。
+ * exec 命令交给本机 /bin/sh -c 执行，SFTP 直接访问本机文件系统，
+ * 因此上传后的远程校验（sha256sum 等）与真实服务器行为一致。
+ */
+@Log4j2
+public class EmbeddedSshServer implements AutoCloseable {
+
+    public static final String USERNAME = "nexara";
+    public static final String PASSWORD = "nexara-test";
+
+    private final SshServer server;
+
+    @Getter
+    private int port;
+
+    public EmbeddedSshServer() {
+        server = SshServer.setUpDefaultServer();
+        server.setHost("127.0.0.1");
+        server.setPort(0);
+        server.setKeyPairProvider(new SimpleGeneratorHostKeyProvider());
+        server.setPasswordAuthenticator((username, password, session) ->
+                USERNAME.equals(username) && PASSWORD.equals(password));
+        server.setCommandFactory((channel, command) ->
+                new ProcessShellFactory(command, "/bin/sh", "-c", command).createShell(channel));
+        server.setSubsystemFactories(List.of(new SftpSubsystemFactory()));
+    }
+
+    public EmbeddedSshServer start() throws IOException {
+        server.start();
+        port = server.getPort();
+        log.info("内嵌 SSH 服务已启动: 127.0.0.1:{}", port);
+        return this;
+    }
+
+    /**
+     * 连接该服务所用的服务器信息
+     */
+    public ServerInfo getServerInfo(String serverId) {
+        return ServerInfo.builder()
+                .serverId(serverId)
+                .host("127.0.0.1")
+                .port(port)
+                .username(USERNAME)
+                .password(PASSWORD)
+                .protocol(ProtocolType.SSH)
+                .build();
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.stop(true);
+        log.info("内嵌 SSH 服务已关闭");
+    }
+}
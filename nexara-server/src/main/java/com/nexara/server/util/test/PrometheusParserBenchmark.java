@@ -0,0 +1,260 @@
+package com.nexara.server.util.test;
+
+import com.nexara.server.core.monitor.NodeMetrics;
+import lombok.extern.log4j.Log4j2;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Node Exporter 响应解析基准：流式解析 {@link NodeMetrics} 与原先逐指标正则扫描的对比。
+ * 默认使用按 Node Exporter 输出结构生成的约 200 KB 响应（32 核、60 个挂载点），
+ * 也可以用 -Dnexara.bench.payload=文件路径 指定一份真实抓取的 /metrics 响应。
+ * 每项耗时超出 -Dnexara.bench.&lt;项目&gt;=毫秒 指定的预算时失败，未指定则只输出结果。
+ */
+@Log4j2
+class PrometheusParserBenchmark {
+
+    private static final int WARMUP = 200;
+    private static final int ITERATIONS = 500;
+
+    private static byte[] payload;
+
+    @BeforeAll
+    static void loadPayload() throws IOException {
+        String path = System.getProperty("nexara.bench.payload");
+        payload = path != null ? Files.readAllBytes(Path.of(path)) : generatePayload(200 * 1024);
+        log.info("响应大小 {} KB，来源: {}", payload.length / 1024, path != null ? path : "生成");
+    }
+
+    @Test
+    void streamingMatchesRegex() throws IOException {
+        NodeMetrics metrics = NodeMetrics.parse(new ByteArrayInputStream(payload));
+        LegacyRegexExtractor legacy = new LegacyRegexExtractor(new String(payload, StandardCharsets.UTF_8));
+
+        assertEquals(legacy.cpuCores(), metrics.getCpuCores());
+        assertEquals(legacy.value("node_memory_MemTotal_bytes"), metrics.getMemTotalBytes());
+        assertEquals(legacy.value("node_memory_MemAvailable_bytes"), metrics.getMemAvailableBytes());
+        assertEquals(legacy.diskTotal(), metrics.getDiskTotalBytes(), 1.0);
+        assertEquals(legacy.diskUsed(), metrics.getDiskUsedBytes(), 1.0);
+        assertEquals(legacy.networkUp(), metrics.isNetworkUp());
+    }
+
+    @Test
+    void regexParse() {
+        report("parse-regex", measure(() -> {
+            LegacyRegexExtractor legacy = new LegacyRegexExtractor(new String(payload, StandardCharsets.UTF_8));
+            legacy.cpuCores();
+            legacy.value("node_memory_MemTotal_bytes");
+            legacy.value("node_memory_MemAvailable_bytes");
+            legacy.diskTotal();
+            legacy.diskUsed();
+            legacy.networkUp();
+        }));
+    }
+
+    @Test
+    void streamingParse() {
+        report("parse-streaming", measure(() -> NodeMetrics.parse(new ByteArrayInputStream(payload))));
+    }
+
+    private static List<Long> measure(BenchmarkTask task) {
+        try {
+            for (int i = 0; i < WARMUP; i++) {
+                task.run();
+            }
+            List<Long> samples = new ArrayList<>();
+            for (int i = 0; i < ITERATIONS; i++) {
+                long start = System.nanoTime();
+                task.run();
+                samples.add(System.nanoTime() - start);
+            }
+            return samples;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 按 Node Exporter 的指标族、HELP/TYPE 注释与标签格式生成响应，直到达到目标大小
+     */
+    private static byte[] generatePayload(int targetBytes) {
+        StringBuilder out = new StringBuilder(targetBytes + 4096);
+        family(out, "go_gc_duration_seconds", "summary");
+        for (String quantile : new String[]{"0", "0.25", "0.5", "0.75", "1"}) {
+            out.append("go_gc_duration_seconds{quantile=\"").append(quantile).append("\"} 2.1347e-05\n");
+        }
+        family(out, "node_cpu_seconds_total", "counter");
+        String[] modes = {"idle", "iowait", "irq", "nice", "softirq", "steal", "system", "user"};
+        for (int cpu = 0; cpu < 32; cpu++) {
+            for (String mode : modes) {
+                out.append("node_cpu_seconds_total{cpu=\"").append(cpu).append("\",mode=\"").append(mode)
+                        .append("\"} ").append(format(123456.78 + cpu * 17 + mode.length())).append('\n');
+            }
+        }
+        String[] memory = {"Active", "Buffers", "Cached", "Dirty", "Inactive", "MemAvailable", "MemFree",
+                "MemTotal", "Shmem", "Slab", "SwapFree", "SwapTotal"};
+        for (String field : memory) {
+            family(out, "node_memory_" + field + "_bytes", "gauge");
+            out.append("node_memory_").append(field).append("_bytes ")
+                    .append(field.equals("MemTotal") ? "3.3567674368e+10" : "1.2415152128e+10").append('\n');
+        }
+
+        String[] fsFamilies = {"node_filesystem_avail_bytes", "node_filesystem_device_error", "node_filesystem_files",
+                "node_filesystem_files_free", "node_filesystem_free_bytes", "node_filesystem_readonly",
+                "node_filesystem_size_bytes"};
+        for (String fsFamily : fsFamilies) {
+            family(out, fsFamily, "gauge");
+            for (int mount = 0; mount < 60; mount++) {
+                double size = 1.073741824e+10 * (mount + 1);
+                double value = switch (fsFamily) {
+                    case "node_filesystem_size_bytes" -> size;
+                    case "node_filesystem_avail_bytes", "node_filesystem_free_bytes" -> size * 0.37;
+                    case "node_filesystem_device_error", "node_filesystem_readonly" -> 0;
+                    default -> 655360 + mount;
+                };
+                out.append(fsFamily).append("{device=\"/dev/vdb").append(mount)
+                        .append("\",fstype=\"ext4\",mountpoint=\"/data/volume-").append(mount).append("\"} ")
+                        .append(format(value)).append('\n');
+            }
+        }
+
+        String[] netFamilies = {"node_network_receive_bytes_total", "node_network_transmit_bytes_total",
+                "node_network_receive_packets_total", "node_network_transmit_packets_total", "node_network_up"};
+        String[] devices = {"lo", "eth0", "docker0", "veth1a2b3c", "veth4d5e6f", "br-0f1e2d3c"};
+        for (String netFamily : netFamilies) {
+            family(out, netFamily, netFamily.endsWith("_up") ? "gauge" : "counter");
+            for (String device : devices) {
+                out.append(netFamily).append("{device=\"").append(device).append("\"} ")
+                        .append(netFamily.endsWith("_up") ? (device.equals("lo") ? "0" : "1") : "8.93215744e+08")
+                        .append('\n');
+            }
+        }
+
+        // 其余与本项目无关的指标族填充到目标大小，结构与 node_disk_* / node_schedstat_* 一致
+        for (int i = 0; out.length() < targetBytes; i++) {
+            String name = "node_disk_io_stat_" + i + "_total";
+            family(out, name, "counter");
+            for (int device = 0; device < 16; device++) {
+                out.append(name).append("{device=\"nvme").append(device).append("n1\"} ")
+                        .append(format(4.2e+06 + device)).append('\n');
+            }
+        }
+        return out.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 与 Node Exporter（Go 的 strconv 'g' 格式）一致，指数部分写作 e+10 而不是 Java 的 E10
+     */
+    private static String format(double value) {
+        String text = Double.toString(value);
+        return text.contains("E-") ? text.replace("E", "e") : text.replace("E", "e+");
+    }
+
+    private static void family(StringBuilder out, String name, String type) {
+        out.append("# HELP ").append(name).append(" Metric ").append(name).append(" read from the node.\n");
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    /**
+     * 原 ServerMonitorManager 的提取方式：整个响应作为字符串，每个指标编译一次正则并全文扫描，
+     * 每个挂载点再全文扫描一次可用空间
+     */
+    private record LegacyRegexExtractor(String metrics) {
+
+        int cpuCores() {
+            Set<String> cpuSet = new HashSet<>();
+            Matcher matcher = Pattern.compile("node_cpu_seconds_total\\{cpu=\"(\\d+)\"").matcher(metrics);
+            while (matcher.find()) {
+                cpuSet.add(matcher.group(1));
+            }
+            return Math.max(1, cpuSet.size());
+        }
+
+        double value(String metricName) {
+            Matcher matcher = Pattern.compile(metricName + "\\s+([0-9.e+]+)").matcher(metrics);
+            return matcher.find() ? Double.parseDouble(matcher.group(1)) : Double.NaN;
+        }
+
+        double diskTotal() {
+            double total = 0;
+            for (double[] fs : filesystems(false)) {
+                total += fs[0];
+            }
+            return total;
+        }
+
+        double diskUsed() {
+            double used = 0;
+            for (double[] fs : filesystems(true)) {
+                used += fs[0] - fs[1];
+            }
+            return used;
+        }
+
+        boolean networkUp() {
+            return Pattern.compile("node_network_up\\{device=\"(eth\\d+|ens\\d+|enp\\d+)\"}\\s+1")
+                    .matcher(metrics).find();
+        }
+
+        private List<double[]> filesystems(boolean withAvail) {
+            Matcher matcher = Pattern.compile(
+                    "node_filesystem_size_bytes\\{[^}]*mountpoint=\"([^\"]+)\"[^}]*}\\s+([0-9.e+]+)").matcher(metrics);
+            List<double[]> result = new ArrayList<>();
+            Set<String> processed = new HashSet<>();
+            while (matcher.find()) {
+                String mountPoint = matcher.group(1);
+                double size = Double.parseDouble(matcher.group(2));
+                if (processed.add(mountPoint) && size > 0) {
+                    result.add(new double[]{size, withAvail ? avail(mountPoint) : 0});
+                }
+            }
+            return result;
+        }
+
+        private double avail(String mountpoint) {
+            Matcher matcher = Pattern.compile("node_filesystem_avail_bytes\\{[^}]*mountpoint=\""
+                    + Pattern.quote(mountpoint) + "\"[^}]*}\\s+([0-9.e+]+)").matcher(metrics);
+            return matcher.find() ? Double.parseDouble(matcher.group(1)) : 0.0;
+        }
+    }
+
+    /**
+     * 输出 p50 / p99 / max（毫秒），并与 -Dnexara.bench.&lt;name&gt; 指定的 p50 预算比较
+     */
+    private static void report(String name, List<Long> samples) {
+        List<Long> sorted = new ArrayList<>(samples);
+        Collections.sort(sorted);
+        double p50 = sorted.get(sorted.size() / 2) / 1e6;
+        double p99 = sorted.get(Math.min(sorted.size() - 1, (int) (sorted.size() * 0.99))) / 1e6;
+        double max = sorted.get(sorted.size() - 1) / 1e6;
+        log.info("[{}] 样本 {}，p50 {} ms，p99 {} ms，max {} ms", name, sorted.size(),
+                String.format("%.3f", p50), String.format("%.3f", p99), String.format("%.3f", max));
+
+        String budget = System.getProperty("nexara.bench." + name);
+        if (budget != null) {
+            assertTrue(p50 <= Double.parseDouble(budget),
+                    String.format("[%s] p50 %.3f ms 超出预算 %s ms", name, p50, budget));
+        }
+    }
+
+    @FunctionalInterface
+    private interface BenchmarkTask {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,169 @@
+package com.nexara.server.util.test;
+
+import com.nexara.server.core.connect.product.ServerConnection;
+import com.nexara.server.core.exception.connect.CommandExecutionException;
+import com.nexara.server.core.os.ScriptExecutor;
+import com.nexara.server.polo.enums.ConnectErrorCode;
+import com.nexara.server.polo.model.ServerInfo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 批量脚本的命令切分：heredoc 整体作为一条命令，here-string 与算术左移不能被当成 heredoc。
+ * 通过生成的批量脚本中的步骤标记数校验切分出的命令数。
+ * 脚本的 stdin 重定向到 /dev/null，读 stdin 的命令不会一直等待。
+ * 另外校验输出超过日志上限后，失败步骤仍能根据标记定位；失败标记从 stderr 末尾解析，不依赖输出回调。
+ */
+class ScriptExecutorParseTest {
+
+    private static final String STEP_MARKER = "__NEXARA_STEP__";
+    private static final String FAIL_MARKER = "__NEXARA_FAIL__";
+
+    private Path script;
+
+    @BeforeEach
+    void createScript() throws Exception {
+        script = Files.createTempFile("nexara-script", ".sh");
+    }
+
+    @AfterEach
+    void deleteScript() throws Exception {
+        Files.deleteIfExists(script);
+    }
+
+    @Test
+    void heredocIsOneCommand() throws Exception {
+        String batch = batchScript(
+                "cat > /etc/app.conf <<EOF",
+                "port=8080",
+                "EOF",
+                "echo done");
+        assertEquals(2, countSteps(batch));
+        assertTrue(batch.contains("port=8080\nEOF\n"));
+    }
+
+    @Test
+    void quotedAndTabStrippedHeredoc() throws Exception {
+        assertEquals(2, countSteps(batchScript(
+                "cat <<-'END_OF_FILE'",
+                "\t$HOME is not expanded",
+                "\tEND_OF_FILE",
+                "echo done")));
+        assertEquals(2, countSteps(batchScript(
+                "cat << \"EOF\"",
+                "text",
+                "EOF",
+                "echo done")));
+    }
+
+    @Test
+    void hereStringIsNotHeredoc() throws Exception {
+        assertEquals(3, countSteps(batchScript(
+                "grep -q ok <<< word",
+                "echo word",
+                "echo done")));
+    }
+
+    @Test
+    void arithmeticShiftIsNotHeredoc() throws Exception {
+        assertEquals(3, countSteps(batchScript(
+                "echo $((1<<2))",
+                "mask=$(( (flags + 1) << shift ))",
+                "echo shift")));
+        assertEquals(2, countSteps(batchScript(
+                "((x = y<<z))",
+                "echo z")));
+    }
+
+    @Test
+    void delimiterMustStartWithLetter() throws Exception {
+        assertEquals(2, countSteps(batchScript(
+                "echo 1 <<2",
+                "echo 2")));
+    }
+
+    @Test
+    void failureMarkerAfterLargeOutput() throws Exception {
+        Files.write(script, List.of("# 输出大量日志", "yes | head -n 1000000", "# 安装", "false"));
+        ServerConnection connection = mock(ServerConnection.class);
+        when(connection.getServerInfo()).thenReturn(new ServerInfo());
+        doAnswer(invocation -> {
+            Consumer<String> consumer = invocation.getArgument(1);
+            consumer.accept(STEP_MARKER + " 0");
+            String line = "y".repeat(1023);
+            for (int i = 0; i < 8 * 1024; i++) {
+                consumer.accept(line);
+            }
+            consumer.accept(STEP_MARKER + " 1");
+            consumer.accept(FAIL_MARKER + " 1 1");
+            throw new CommandExecutionException(ConnectErrorCode.COMMAND_EXECUTION_FAILED,
+                    invocation.getArgument(0), null, FAIL_MARKER + " 1 1");
+        }).when(connection).executeCommandStreaming(anyString(), any(), anyLong(), anyLong());
+
+        CommandExecutionException e = assertThrows(CommandExecutionException.class,
+                () -> new ScriptExecutor(connection).runScriptBatch(script.toString()));
+        assertEquals("false", e.getCommand());
+        assertTrue(e.getRawError().contains("【安装】"));
+    }
+
+    @Test
+    void failureMarkerWithoutCallbacks() throws Exception {
+        Files.write(script, List.of("# 准备", "true", "# 安装", "false", "# 启动", "true"));
+        ServerConnection connection = mock(ServerConnection.class);
+        when(connection.getServerInfo()).thenReturn(new ServerInfo());
+        // 回调一行都没有收到，失败步骤只能从 stderr 末尾定位
+        doAnswer(invocation -> {
+            throw new CommandExecutionException(ConnectErrorCode.COMMAND_EXECUTION_FAILED,
+                    invocation.getArgument(0), null, "E: 安装失败\n\n" + FAIL_MARKER + " 1 100");
+        }).when(connection).executeCommandStreaming(anyString(), any(), anyLong(), anyLong());
+
+        CommandExecutionException e = assertThrows(CommandExecutionException.class,
+                () -> new ScriptExecutor(connection).runScriptBatch(script.toString()));
+        assertEquals("false", e.getCommand());
+        assertTrue(e.getRawError().contains("【安装】"));
+        assertTrue(e.getRawError().contains("退出码: 100"));
+    }
+
+    @Test
+    void failureMarkerGoesToStderr() throws Exception {
+        String batch = batchScript("false");
+        assertTrue(batch.contains(FAIL_MARKER + " 0 %d\\n' $rc >&2; exit $rc"));
+    }
+
+    @Test
+    void stdinIsDevNull() throws Exception {
+        assertTrue(batchScript("newgrp docker", "echo done").startsWith("exec </dev/null\n"));
+    }
+
+    private String batchScript(String... lines) throws Exception {
+        Files.write(script, List.of(lines));
+        ServerConnection connection = mock(ServerConnection.class);
+        new ScriptExecutor(connection).runScriptBatch(script.toString());
+
+        ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
+        verify(connection).executeCommandStreaming(captor.capture(), any(), anyLong(), anyLong());
+        return captor.getValue();
+    }
+
+    private static int countSteps(String batch) {
+        return batch.split(STEP_MARKER, -1).length - 1;
+    }
+}
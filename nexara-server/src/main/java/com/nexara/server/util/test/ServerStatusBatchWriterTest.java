@@ -0,0 +1,115 @@
+package com.nexara.server.util.test;
+
+import com.nexara.server.config.MonitorProperties;
+import com.nexara.server.core.manager.ServerStatusBatchWriter;
+import com.nexara.server.polo.enums.LoadStatus;
+import com.nexara.server.polo.enums.NetworkStatus;
+import com.nexara.server.polo.model.ServerStatus;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.SqlSessionFactoryBean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.sqlite.SQLiteDataSource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 监控数据批量写入的事务性：SqlSessionFactory 按应用中的方式由 mybatis-spring 创建，
+ * 表结构与已发布的数据库一致（指标列非空）。批内一条记录写入失败时整批回滚，
+ * 随后逐条重试，只丢弃失败的那一条。
+ */
+class ServerStatusBatchWriterTest {
+
+    private Path database;
+    private SQLiteDataSource dataSource;
+
+    @BeforeEach
+    void createDatabase() throws Exception {
+        database = Files.createTempFile("nexara-status", ".db");
+        dataSource = new SQLiteDataSource();
+        dataSource.setUrl("jdbc:sqlite:" + database + "?journal_mode=WAL&busy_timeout=5000");
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+    }
+
+    @AfterEach
+    void deleteDatabase() throws Exception {
+        for (String suffix : new String[]{"", "-wal", "-shm"}) {
+            Files.deleteIfExists(Path.of(database + suffix));
+        }
+    }
+
+    @Test
+    void failingRowDropsOnlyItself() throws Exception {
+        ServerStatusBatchWriter writer = createWriter();
+        writer.submit(status("s1"));
+        // 指标为空，违反非空约束
+        ServerStatus invalid = new ServerStatus();
+        invalid.setServerId("bad");
+        invalid.setLoadStatus(LoadStatus.ERROR);
+        invalid.setLastUpdated(new Date());
+        writer.submit(invalid);
+        writer.submit(status("s2"));
+        writer.shutdown();
+
+        assertEquals(2, countRows());
+        assertEquals(1, writer.getMetrics().getDroppedCount());
+        assertEquals(2, writer.getMetrics().getWrittenCount());
+    }
+
+    @Test
+    void successfulBatchWritesAllRows() throws Exception {
+        ServerStatusBatchWriter writer = createWriter();
+        for (int i = 0; i < 100; i++) {
+            writer.submit(status("s" + i));
+        }
+        writer.shutdown();
+
+        assertEquals(100, countRows());
+        assertEquals(100, writer.getMetrics().getWrittenCount());
+    }
+
+    private ServerStatusBatchWriter createWriter() throws Exception {
+        SqlSessionFactoryBean factoryBean = new SqlSessionFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setMapperLocations(new ClassPathResource("mapper/ServerStatusMapper.xml"));
+        SqlSessionFactory sqlSessionFactory = factoryBean.getObject();
+
+        MonitorProperties properties = new MonitorProperties();
+        properties.getWriteBehind().setMaxLatency(Duration.ofMillis(500));
+        return new ServerStatusBatchWriter(sqlSessionFactory, properties);
+    }
+
+    private static ServerStatus status(String serverId) {
+        ServerStatus status = new ServerStatus();
+        status.setServerId(serverId);
+        status.setCpuCores(4);
+        status.setMemorySizeGb(8f);
+        status.setMemoryUsagePercent(50f);
+        status.setDiskSizeGb(100f);
+        status.setDiskUsagePercent(30f);
+        status.setNetworkStatus(NetworkStatus.ONLINE);
+        status.setLoadStatus(LoadStatus.LOW);
+        status.setLastUpdated(new Date());
+        return status;
+    }
+
+    private long countRows() throws Exception {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("select count(*) from server_status")) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.nexara.server.util.test;
+
+import com.nexara.server.config.ConnectionPoolProperties;
+import com.nexara.server.core.connect.product.ServerConnection;
+import com.nexara.server.core.connect.product.SshConnection;
+import com.nexara.server.core.connect.provider.SshConnectionProvider;
+import com.nexara.server.polo.model.ServerInfo;
+import com.nexara.server.util.HashUtils;
+import lombok.extern.log4j.Log4j2;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 连接层基准测试，基于 {@link EmbeddedSshServer}，不需要真实服务器。
+ * 覆盖命令往返延迟、会话与通道开销、连接池借用竞争、SFTP 吞吐。
+ * 每项耗时超出 -Dnexara.bench.&lt;项目&gt;=毫秒 指定的预算时失败，未指定则只输出结果。
+ */
+@Log4j2
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class SshConnectionBenchmark {
+
+    private static final int WARMUP = 20;
+
+    private static EmbeddedSshServer server;
+    private static ServerInfo serverInfo;
+    private static Path workDir;
+
+    @BeforeAll
+    static void startServer() throws IOException {
+        server = new EmbeddedSshServer().start();
+        serverInfo = server.getServerInfo("bench");
+        workDir = Files.createTempDirectory("nexara-bench");
+    }
+
+    @AfterAll
+    static void stopServer() throws IOException {
+        server.close();
+        try (var paths = Files.walk(workDir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    @Order(1)
+    void sessionEstablishment() {
+        List<Long> samples = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            long start = System.nanoTime();
+            SshConnection connection = new SshConnection(serverInfo);
+            samples.add(System.nanoTime() - start);
+            connection.disconnect();
+        }
+        report("session-connect", samples);
+    }
+
+    @Test
+    @Order(2)
+    void commandRoundTrip() {
+        try (SshConnection connection = new SshConnection(serverInfo)) {
+            for (int i = 0; i < WARMUP; i++) {
+                connection.executeCommand("true");
+            }
+            // 每条命令都新开一个 exec 通道，耗时即通道开销加一次往返
+            List<Long> samples = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                long start = System.nanoTime();
+                assertEquals("ok", connection.executeCommand("echo ok"));
+                samples.add(System.nanoTime() - start);
+            }
+            report("command-round-trip", samples);
+        }
+    }
+
+    @Test
+    @Order(3)
+    void concurrentChannels() throws Exception {
+        try (SshConnection connection = new SshConnection(serverInfo)) {
+            List<Long> samples = Collections.synchronizedList(new ArrayList<>());
+            runConcurrently(connection.getMaxChannels() * 2, 20, () -> {
+                long start = System.nanoTime();
+                connection.executeCommand("true");
+                samples.add(System.nanoTime() - start);
+            });
+            report("concurrent-channels", samples);
+        }
+    }
+
+    @Test
+    @Order(4)
+    void poolBorrowContention() throws Exception {
+        SshConnectionProvider provider = new SshConnectionProvider(new ConnectionPoolProperties());
+        List<Long> borrowSamples = Collections.synchronizedList(new ArrayList<>());
+        long start = System.nanoTime();
+        runConcurrently(64, 20, () -> {
+            long borrowStart = System.nanoTime();
+            ServerConnection connection = provider.getConnection(serverInfo);
+            borrowSamples.add(System.nanoTime() - borrowStart);
+            try {
+                connection.executeCommand("true");
+            } finally {
+                provider.returnConnection(connection);
+            }
+        });
+        double seconds = (System.nanoTime() - start) / 1e9;
+        report("pool-borrow", borrowSamples);
+        log.info("[pool-borrow] {} 次借用+执行，吞吐 {} 次/秒，连接池: {}",
+                borrowSamples.size(), String.format("%.1f", borrowSamples.size() / seconds), provider.getPoolMetrics());
+    }
+
+    @Test
+    @Order(5)
+    void sftpThroughput() throws Exception {
+        try (SshConnection connection = new SshConnection(serverInfo)) {
+            for (int sizeMb : new int[]{1, 16, 64}) {
+                Path local = createRandomFile(sizeMb);
+                String expected = HashUtils.sha256Hex(local);
+
+                String single = workDir.resolve("single-" + sizeMb + ".bin").toString();
+                long start = System.nanoTime();
+                connection.uploadFile(local.toString(), single);
+                logThroughput("sftp-single", sizeMb, System.nanoTime() - start);
+                assertEquals(expected, HashUtils.sha256Hex(Path.of(single)));
+
+                String parallel = workDir.resolve("parallel-" + sizeMb + ".bin").toString();
+                start = System.nanoTime();
+                connection.uploadFileParallel(local.toString(), parallel, 4, 4 * 1024 * 1024L);
+                logThroughput("sftp-parallel", sizeMb, System.nanoTime() - start);
+                assertEquals(expected, HashUtils.sha256Hex(Path.of(parallel)));
+            }
+        }
+    }
+
+    private static void runConcurrently(int threads, int iterations, BenchmarkTask task) throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < iterations; i++) {
+                        task.run();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+    }
+
+    private static Path createRandomFile(int sizeMb) throws IOException {
+        Path file = workDir.resolve("source-" + sizeMb + ".bin");
+        byte[] buffer = new byte[1024 * 1024];
+        Random random = new Random(sizeMb);
+        try (OutputStream output = Files.newOutputStream(file)) {
+            for (int i = 0; i < sizeMb; i++) {
+                random.nextBytes(buffer);
+                output.write(buffer);
+            }
+        }
+        return file;
+    }
+
+    private static void logThroughput(String name, int sizeMb, long nanos) {
+        double seconds = nanos / 1e9;
+        log.info("[{}] {} MB 用时 {} 毫秒，{} MB/s",
+                name, sizeMb, nanos / 1_000_000, String.format("%.1f", sizeMb / seconds));
+    }
+
+    /**
+     * 输出 p50 / p99 / max（毫秒），并与 -Dnexara.bench.&lt;name&gt; 指定的 p50 预算比较
+     */
+    private static void report(String name, List<Long> samples) {
+        List<Long> sorted = new ArrayList<>(samples);
+        Collections.sort(sorted);
+        double p50 = sorted.get(sorted.size() / 2) / 1e6;
+        double p99 = sorted.get(Math.min(sorted.size() - 1, (int) (sorted.size() * 0.99))) / 1e6;
+        double max = sorted.get(sorted.size() - 1) / 1e6;
+        log.info("[{}] 样本 {}，p50 {} ms，p99 {} ms，max {} ms", name, sorted.size(),
+                String.format("%.2f", p50), String.format("%.2f", p99), String.format("%.2f", max));
+
+        String budget = System.getProperty("nexara.bench." + name);
+        if (budget != null) {
+            assertTrue(p50 <= Double.parseDouble(budget),
+                    String.format("[%s] p50 %.2f ms 超出预算 %s ms", name, p50, budget));
+        }
+    }
+
+    @FunctionalInterface
+    private interface BenchmarkTask {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,82 @@
+-- 启动时执行（spring.sql.init.mode=always），只创建不存在的表与索引
+-- 时间字段均为毫秒时间戳（sqlite-jdbc 默认以 INTEGER 保存 Date）
+
+-- 与已发布的 data/nexara.db 中的定义保持一致：指标列非空且有取值范围，
+-- 采集失败的记录 load_status 为 ERROR，error 为失败原因，指标列保存的是占位值，不参与聚合
+CREATE TABLE IF NOT EXISTS server_status (
+    id INTEGER PRIMARY KEY AUTOINCREMENT,
+    server_id TEXT NOT NULL,                               -- 服务器标识，可重复
+    cpu_cores INTEGER NOT NULL CHECK(cpu_cores > 0),       -- CPU 核心数必须大于0
+    memory_size_gb REAL NOT NULL CHECK(memory_size_gb >= 0),
+    memory_usage_percent REAL NOT NULL CHECK(memory_usage_percent >= 0 AND memory_usage_percent <= 100),
+    disk_size_gb REAL NOT NULL CHECK(disk_size_gb >= 0),
+    disk_usage_percent REAL NOT NULL CHECK(disk_usage_percent >= 0 AND disk_usage_percent <= 100),
+    network_status TEXT NOT NULL DEFAULT 'OFFLINE',        -- 保存枚举名: ONLINE/OFFLINE/UNSTABLE
+    load_status TEXT NOT NULL DEFAULT 'LOW',              -- 保存枚举名: LOW/MEDIUM/HIGH/CRITICAL/ERROR
+    last_updated DATETIME DEFAULT CURRENT_TIMESTAMP,      -- 默认当前时间
+    error TEXT                                            -- 错误信息，可为空
+);
+
+CREATE INDEX IF NOT EXISTS idx_server_status_server_id ON server_status (server_id);
+CREATE INDEX IF NOT EXISTS idx_server_status_last_updated ON server_status (last_updated);
+CREATE INDEX IF NOT EXISTS idx_server_status_server_time ON server_status (server_id, last_updated);
+
+-- 监控历史聚合：按 1 分钟 / 1 小时 / 1 天分桶的 min/avg/max
+-- samples 为参与聚合的成功采集数，error_count 为采集失败（load_status 为 ERROR）的记录数
+
+CREATE TABLE IF NOT EXISTS server_status_1m (
+    server_id         TEXT    NOT NULL,
+    bucket_start      INTEGER NOT NULL,
+    samples           INTEGER NOT NULL,
+    error_count       INTEGER NOT NULL,
+    cpu_cores         INTEGER,
+    memory_size_gb    REAL,
+    disk_size_gb      REAL,
+    memory_usage_min  REAL,
+    memory_usage_avg  REAL,
+    memory_usage_max  REAL,
+    disk_usage_min    REAL,
+    disk_usage_avg    REAL,
+    disk_usage_max    REAL,
+    PRIMARY KEY (server_id, bucket_start)
+);
+
+CREATE TABLE IF NOT EXISTS server_status_1h (
+    server_id         TEXT    NOT NULL,
+    bucket_start      INTEGER NOT NULL,
+    samples           INTEGER NOT NULL,
+    error_count       INTEGER NOT NULL,
+    cpu_cores         INTEGER,
+    memory_size_gb    REAL,
+    disk_size_gb      REAL,
+    memory_usage_min  REAL,
+    memory_usage_avg  REAL,
+    memory_usage_max  REAL,
+    disk_usage_min    REAL,
+    disk_usage_avg    REAL,
+    disk_usage_max    REAL,
+    PRIMARY KEY (server_id, bucket_start)
+);
+
+CREATE TABLE IF NOT EXISTS server_status_1d (
+    server_id         TEXT    NOT NULL,
+    bucket_start      INTEGER NOT NULL,
+    samples           INTEGER NOT NULL,
+    error_count       INTEGER NOT NULL,
+    cpu_cores         INTEGER,
+    memory_size_gb    REAL,
+    disk_size_gb      REAL,
+    memory_usage_min  REAL,
+    memory_usage_avg  REAL,
+    memory_usage_max  REAL,
+    disk_usage_min    REAL,
+    disk_usage_avg    REAL,
+    disk_usage_max    REAL,
+    PRIMARY KEY (server_id, bucket_start)
+);
+
+-- 每个粒度已聚合到的时间点，之前的桶不再重算
+CREATE TABLE IF NOT EXISTS server_status_rollup_state (
+    resolution TEXT PRIMARY KEY,
+    watermark  INTEGER NOT NULL
+);